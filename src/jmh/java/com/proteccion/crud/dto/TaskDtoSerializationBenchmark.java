@@ -0,0 +1,43 @@
+package com.proteccion.crud.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proteccion.crud.models.Task;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de serializar con Jackson listas de {@link TaskDto} de distintos tamaños,
+ * con un ObjectMapper configurado como el de Spring Boot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TaskDtoSerializationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<TaskDto> tasks;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        tasks = new ArrayList<>(size);
+        for (long i = 1; i <= size; i++) {
+            tasks.add(new TaskDto(i, "Tarea " + i, "Descripción de la tarea " + i,
+                    LocalDate.of(2030, 1, 1).plusDays(i % 365), Task.TaskStatus.values()[(int) (i % 3)],
+                    1L, "creador", 2L, "asignado"));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializeList() throws Exception {
+        return objectMapper.writeValueAsBytes(tasks);
+    }
+}
@@ -0,0 +1,110 @@
+package com.proteccion.crud.security;
+
+import com.proteccion.crud.CrudApplication;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.User;
+import com.proteccion.crud.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mide el coste por solicitud de {@link JwtAuthenticationFilter} en sus dos modos:
+ * sin estado (claims del token) y respaldado por base de datos (consulta de usuario y roles).
+ * Se usa H2 en memoria, por lo que el modo con base de datos no incluye la latencia de red
+ * de MySQL: la diferencia real en producción es mayor que la medida aquí.
+ * Con {@code metrics=false} el filtro usa un registro vacío (temporizadores sin efecto) para comparar
+ * con el coste de la instrumentación publicada en Prometheus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean stateless;
+
+    @Param({"true", "false"})
+    public boolean metrics;
+
+    private ConfigurableApplicationContext context;
+    private JwtAuthenticationFilter filter;
+    private String authorizationHeader;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SpringApplication application = new SpringApplication(CrudApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.setDefaultProperties(Map.of(
+                "spring.datasource.url", "jdbc:h2:mem:jwtbench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "spring.datasource.username", "sa",
+                "spring.datasource.password", "",
+                "spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect",
+                "spring.jpa.hibernate.ddl-auto", "create-drop",
+                "spring.jpa.show-sql", "false",
+                "logging.level.root", "WARN",
+                "logging.level.org.springframework.security", "WARN"));
+        context = application.run();
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                context.getBean(EntityManagerFactory.class));
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+                .executeWithoutResult(status -> {
+                    Role role = new Role();
+                    role.setName(Role.RoleName.ROLE_USER);
+                    entityManager.persist(role);
+
+                    User user = new User();
+                    user.setUsername("bench");
+                    user.setEmail("bench@proteccion.com");
+                    user.setPassword("{noop}bench");
+                    user.getRoles().add(role);
+                    userRepository.save(user);
+                });
+
+        JwtTokenProvider tokenProvider = context.getBean(JwtTokenProvider.class);
+        UserDetailsServiceImpl userDetailsService = context.getBean(UserDetailsServiceImpl.class);
+        UserDetails userDetails = userDetailsService.loadUserByUsername("bench");
+        authorizationHeader = "Bearer " + tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()));
+
+        MeterRegistry meterRegistry = metrics ? context.getBean(MeterRegistry.class) : new CompositeMeterRegistry();
+        filter = new JwtAuthenticationFilter(tokenProvider, userDetailsService, stateless, meterRegistry);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Authentication authenticateRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tasks");
+        request.addHeader("Authorization", authorizationHeader);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.proteccion.crud.security;
+
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de emitir y verificar tokens en {@link JwtTokenProvider}.
+ * Con {@code cacheSize=0} la caché de tokens verificados está desactivada y cada validación
+ * comprueba la firma; con la caché activa, la validación repetida del mismo token es un acierto.
+ * Con {@code metrics=true} las validaciones se registran en un registro Prometheus, como en producción,
+ * para medir el coste de la instrumentación.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtTokenProviderBenchmark {
+
+    @Param({"0", "10000"})
+    public int cacheSize;
+
+    @Param({"false", "true"})
+    public boolean metrics;
+
+    private JwtTokenProvider tokenProvider;
+    private Authentication authentication;
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret",
+                "BenchmarkJwtSecretKeyThatIsLongEnoughForHmacSha256Signatures");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 3600000);
+        ReflectionTestUtils.setField(tokenProvider, "jwtCacheMaxSize", cacheSize);
+        ReflectionTestUtils.setField(tokenProvider, "jwtCacheTtlInMs", 300000L);
+        if (metrics) {
+            ReflectionTestUtils.setField(tokenProvider, "meterRegistry",
+                    new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+        }
+        tokenProvider.init();
+
+        List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+        UserPrincipal principal = new UserPrincipal(1L, "bench", "", authorities);
+        authentication = new UsernamePasswordAuthenticationToken(principal, null, authorities);
+        token = tokenProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return tokenProvider.generateToken(authentication);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public Authentication getAuthentication() {
+        return tokenProvider.getAuthentication(token);
+    }
+}
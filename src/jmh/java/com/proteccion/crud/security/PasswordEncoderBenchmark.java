@@ -0,0 +1,40 @@
+package com.proteccion.crud.security;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de codificar y verificar contraseñas con BCrypt.
+ * La fuerza 10 es la que usa {@code SecurityConfig.passwordEncoder()} (valor por defecto de BCrypt).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class PasswordEncoderBenchmark {
+
+    @Param({"10"})
+    public int strength;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(strength);
+        hash = encoder.encode("contraseña-de-prueba");
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode("contraseña-de-prueba");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches("contraseña-de-prueba", hash);
+    }
+}
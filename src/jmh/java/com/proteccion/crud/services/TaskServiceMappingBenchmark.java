@@ -0,0 +1,55 @@
+package com.proteccion.crud.services;
+
+import com.proteccion.crud.dto.TaskDto;
+import com.proteccion.crud.models.Task;
+import com.proteccion.crud.models.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de las conversiones entre {@link Task} y {@link TaskDto} en {@link TaskService}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskServiceMappingBenchmark {
+
+    private TaskService taskService;
+    private Task task;
+    private TaskDto taskDto;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        taskService = new TaskService();
+
+        User creator = new User();
+        creator.setId(1L);
+        creator.setUsername("creador");
+        User assignee = new User();
+        assignee.setId(2L);
+        assignee.setUsername("asignado");
+
+        task = new Task();
+        task.setId(42L);
+        task.setTitle("Preparar informe trimestral");
+        task.setDescription("Consolidar las cifras de todas las regionales");
+        task.setDueDate(LocalDate.of(2030, 3, 31));
+        task.setStatus(Task.TaskStatus.IN_PROGRESS);
+        task.setCreatedBy(creator);
+        task.setAssignedTo(assignee);
+
+        taskDto = taskService.convertToDto(task);
+    }
+
+    @Benchmark
+    public TaskDto convertToDto() {
+        return taskService.convertToDto(task);
+    }
+
+    @Benchmark
+    public Task convertToEntity() {
+        return taskService.convertToEntity(taskDto);
+    }
+}
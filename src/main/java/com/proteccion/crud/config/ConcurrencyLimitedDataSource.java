@@ -0,0 +1,106 @@
+package com.proteccion.crud.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * DataSource que limita con un semáforo cuántos hilos pueden tener una conexión a la vez.
+ * Con hilos virtuales cada solicitud tiene su propio hilo y miles de ellas pueden pedir conexión al
+ * mismo tiempo: con tantos permisos como conexiones tiene el pool, las que sobran esperan estacionadas
+ * en el semáforo (sin ocupar un carrier) en orden de llegada, en vez de competir dentro del pool.
+ * El permiso se libera al cerrar la conexión.
+ */
+public class ConcurrencyLimitedDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final int maxConnections;
+    private final long acquireTimeoutInMs;
+
+    /**
+     * @param target         DataSource real, normalmente el pool de Hikari
+     * @param maxConnections Conexiones simultáneas permitidas; debería coincidir con el tamaño del pool
+     * @param acquireTimeout Espera máxima por un permiso antes de fallar, como connectionTimeout de Hikari
+     */
+    public ConcurrencyLimitedDataSource(DataSource target, int maxConnections, Duration acquireTimeout) {
+        super(target);
+        this.permits = new Semaphore(maxConnections, true);
+        this.maxConnections = maxConnections;
+        this.acquireTimeoutInMs = acquireTimeout.toMillis();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        return withPermit(() -> super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        return withPermit(() -> super.getConnection(username, password));
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    // Hilos esperando un permiso (estimación, como Semaphore#getQueueLength)
+    public int getWaitingThreads() {
+        return permits.getQueueLength();
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutInMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("No hay conexiones disponibles: se alcanzó el límite de "
+                        + maxConnections + " conexiones simultáneas tras esperar " + acquireTimeoutInMs + " ms");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrumpido mientras se esperaba una conexión", ex);
+        }
+    }
+
+    private Connection withPermit(ConnectionSupplier supplier) throws SQLException {
+        Connection connection;
+        try {
+            connection = supplier.get();
+        } catch (SQLException | RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getTargetException();
+                    } finally {
+                        // close() puede llamarse más de una vez: el permiso se devuelve solo la primera
+                        if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                            permits.release();
+                        }
+                    }
+                });
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+        Connection get() throws SQLException;
+    }
+}
@@ -0,0 +1,86 @@
+package com.proteccion.crud.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Réplicas de lectura: se activa al definir {@code app.datasource.replicas} (URLs JDBC separadas por comas).
+ * Sin esa propiedad se usa el DataSource configurado por Spring Boot con spring.datasource.*.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas")
+public class DataSourceConfig {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.datasource.replicas}")
+    private List<String> replicaUrls;
+
+    @Value("${app.datasource.replicaUsername:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${app.datasource.replicaPassword:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Value("${app.datasource.readYourWritesWindowInMs:5000}")
+    private long readYourWritesWindowInMs;
+
+    @Value("${app.datasource.replicaHealthCheckInMs:5000}")
+    private long replicaHealthCheckInMs;
+
+    @Value("${app.datasource.replicaHealthCheckTimeoutInMs:1000}")
+    private long replicaHealthCheckTimeoutInMs;
+
+    // El pool del primario toma spring.datasource.* y spring.datasource.hikari.*, como el de Spring Boot
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryPool(DataSourceProperties properties) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName("primary");
+        return pool;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaRoutingDataSource routingDataSource(DataSourceProperties properties) {
+        List<HikariDataSource> replicas = new ArrayList<>(replicaUrls.size());
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(replicaUrls.get(i).trim())
+                    .username(replicaUsername)
+                    .password(replicaPassword)
+                    .build();
+            replica.setPoolName("replica-" + i);
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryPool(properties), replicas,
+                Duration.ofMillis(readYourWritesWindowInMs), Duration.ofMillis(replicaHealthCheckInMs),
+                Duration.ofMillis(replicaHealthCheckTimeoutInMs), meterRegistry);
+    }
+
+    // DataSource de la aplicación (JPA, JdbcTemplate): la conexión real se obtiene en la primera sentencia,
+    // cuando ya se sabe si la transacción es de solo lectura
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
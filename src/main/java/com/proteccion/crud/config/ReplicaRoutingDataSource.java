@@ -0,0 +1,219 @@
+package com.proteccion.crud.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * Envía las transacciones de solo lectura ({@code @Transactional(readOnly = true)}) a las réplicas,
+ * por turnos y solo a las que pasan la comprobación de salud, y todo lo demás al primario.
+ *
+ * <p>La comprobación de salud usa por cada réplica un pool propio de una sola conexión y con un plazo
+ * corto, no el pool de las lecturas: una réplica con el pool agotado no se marca como caída, y una
+ * inaccesible no bloquea el arranque ni la comprobación del resto. Cada réplica empieza sin lecturas
+ * hasta pasar la primera comprobación, que se hace en segundo plano al crear el DataSource.
+ *
+ * <p>Lectura de las propias escrituras: cuando un usuario confirma una transacción de escritura, sus
+ * lecturas van al primario durante {@code readYourWritesWindow}, el retraso de replicación tolerado.
+ *
+ * <p>Debe usarse detrás de un {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * el gestor de transacciones pide la conexión antes de marcar la transacción como de solo lectura,
+ * y el proxy retrasa la elección del destino hasta la primera sentencia.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Cache<String, Boolean> recentWriters;
+    private final ScheduledExecutorService healthChecks;
+    private final int healthCheckTimeoutSeconds;
+
+    private final Counter primaryReads;
+    private final Counter replicaReads;
+
+    private static final class Replica {
+        private final String name;
+        private final HikariDataSource dataSource;
+        private final HikariDataSource probe;
+        private volatile boolean healthy;
+        private boolean checked;
+
+        private Replica(String name, HikariDataSource dataSource, HikariDataSource probe) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.probe = probe;
+        }
+    }
+
+    /**
+     * @param primary              Pool del primario
+     * @param replicas             Pools de las réplicas
+     * @param readYourWritesWindow Tiempo durante el que las lecturas de un usuario que escribió van al primario
+     * @param healthCheckInterval  Intervalo de la comprobación de salud de las réplicas
+     * @param healthCheckTimeout   Plazo para obtener y validar la conexión de la comprobación de salud
+     * @param meterRegistry        Registro de las métricas {@code datasource.reads} y {@code datasource.replicas.healthy}
+     */
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas,
+                                    Duration readYourWritesWindow, Duration healthCheckInterval,
+                                    Duration healthCheckTimeout, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas.stream()
+                .map(ds -> new Replica(ds.getPoolName(), ds, probePool(ds, healthCheckTimeout)))
+                .toList();
+        // isValid admite solo segundos enteros
+        this.healthCheckTimeoutSeconds = (int) Math.max(1, healthCheckTimeout.toSeconds());
+        this.recentWriters = Caffeine.newBuilder().expireAfterWrite(readYourWritesWindow).build();
+        setTargets(UnaryOperator.identity());
+
+        primaryReads = Counter.builder("datasource.reads").tag("target", "primary")
+                .description("Transacciones de solo lectura por destino").register(meterRegistry);
+        replicaReads = Counter.builder("datasource.reads").tag("target", "replica")
+                .description("Transacciones de solo lectura por destino").register(meterRegistry);
+        Gauge.builder("datasource.replicas.healthy", this.replicas,
+                        list -> list.stream().filter(replica -> replica.healthy).count())
+                .description("Réplicas que pasan la comprobación de salud")
+                .register(meterRegistry);
+
+        healthChecks = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecks.scheduleWithFixedDelay(this::checkHealth, 0, healthCheckInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Misma URL y credenciales que el pool de la réplica, con una sola conexión y sin fallar al crearse
+    private static HikariDataSource probePool(HikariDataSource replica, Duration timeout) {
+        HikariConfig config = new HikariConfig();
+        replica.copyStateTo(config);
+        config.setPoolName(replica.getPoolName() + "-health");
+        config.setMaximumPoolSize(1);
+        config.setMinimumIdle(0);
+        config.setConnectionTimeout(Math.max(250, timeout.toMillis()));
+        config.setValidationTimeout(Math.max(250, timeout.toMillis()));
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Envuelve cada pool de destino (el primario y cada réplica) por separado, por ejemplo con su propio
+     * límite de conexiones simultáneas. La comprobación de salud sigue usando los pools directamente.
+     */
+    void decorateTargets(UnaryOperator<DataSource> decorator) {
+        setTargets(decorator);
+        afterPropertiesSet();
+    }
+
+    private void setTargets(UnaryOperator<DataSource> decorator) {
+        DataSource primaryTarget = decorator.apply(primary);
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primaryTarget);
+        replicas.forEach(replica -> targets.put(replica.name, decorator.apply(replica.dataSource)));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primaryTarget);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String username = currentUsername();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriterOnCommit(username);
+            return PRIMARY;
+        }
+        if (username != null && recentWriters.getIfPresent(username) != null) {
+            primaryReads.increment();
+            return PRIMARY;
+        }
+
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                replicaReads.increment();
+                return replica.name;
+            }
+        }
+        // Ninguna réplica disponible: el primario atiende también las lecturas
+        primaryReads.increment();
+        return PRIMARY;
+    }
+
+    // La ventana empieza al confirmar, que es cuando el cambio empieza a replicarse
+    private void rememberWriterOnCommit(String username) {
+        if (username == null || !TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(username, Boolean.TRUE);
+            }
+        });
+    }
+
+    private String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated() ? authentication.getName() : null;
+    }
+
+    // Una réplica caída o inaccesible deja de recibir lecturas hasta que vuelva a responder
+    void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.probe.getConnection()) {
+                healthy = connection.isValid(healthCheckTimeoutSeconds);
+            } catch (SQLException ex) {
+                healthy = false;
+            }
+            // En la primera comprobación solo se avisa si la réplica no responde
+            boolean changed = replica.checked ? healthy != replica.healthy : !healthy;
+            if (changed) {
+                logger.warn("Réplica {} {}", replica.name, healthy ? "disponible de nuevo" : "no disponible");
+            }
+            replica.healthy = healthy;
+            replica.checked = true;
+        }
+    }
+
+    // El pool del primario es un bean propio y Spring lo cierra por separado
+    @Override
+    public void close() {
+        healthChecks.shutdownNow();
+        replicas.forEach(replica -> {
+            replica.probe.close();
+            replica.dataSource.close();
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package com.proteccion.crud.config;
+
+import com.proteccion.crud.models.Task;
+import com.proteccion.crud.models.User;
+import com.proteccion.crud.services.TaskVersionAllocator;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Ajustes que {@code ddl-auto=update} no hace en una base de datos existente: adelantar la secuencia de
+ * ids de tareas, eliminar las claves únicas de users con nombres generados y crear la fila del contador
+ * de versiones de tareas. Se ejecutan al arrancar,
+ * después de que Hibernate actualice el esquema (depende del EntityManagerFactory) y antes de atender
+ * solicitudes. Cada paso es idempotente y puede ejecutarse a la vez en varios nodos.
+ */
+@Component
+public class SchemaMigrations {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrations.class);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TaskVersionAllocator taskVersionAllocator;
+
+    @PostConstruct
+    public void migrate() {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect();
+        seedTaskSequence(dialect);
+        dropLegacyUserUniqueKeys(dialect);
+        // Antes de atender solicitudes, para que ninguna confirmación encuentre el contador sin crear
+        taskVersionAllocator.createCounterIfMissing();
+    }
+
+    // Las tareas creadas cuando el id era IDENTITY quedan por delante de la secuencia, que empieza en 1.
+    // Con el optimizador pooled un valor v de la secuencia reserva los ids v - 49 a v, así que el siguiente
+    // valor debe ser al menos max(id) + 50. Solo se adelanta: nunca retrocede una secuencia en uso
+    private void seedTaskSequence(Dialect dialect) {
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from tasks", Long.class);
+        long next = maxId + Task.ID_ALLOCATION_SIZE;
+
+        if (dialect.getSequenceSupport().supportsSequences()) {
+            // Leer el valor actual consume un bloque de ids, que se pierde
+            Long current = jdbcTemplate.queryForObject(
+                    dialect.getSequenceSupport().getSequenceNextValString(Task.ID_SEQUENCE), Long.class);
+            if (current != null && current < next) {
+                jdbcTemplate.execute("alter sequence " + Task.ID_SEQUENCE + " restart with " + next);
+                logger.info("Secuencia {} adelantada a {} (id máximo {})", Task.ID_SEQUENCE, next, maxId);
+            }
+        } else {
+            // MySQL: tabla de una fila con el siguiente valor
+            int updated = jdbcTemplate.update(
+                    "update " + Task.ID_SEQUENCE + " set next_val = ? where next_val < ?", next, next);
+            if (updated > 0) {
+                logger.info("Secuencia {} adelantada a {} (id máximo {})", Task.ID_SEQUENCE, next, maxId);
+            }
+        }
+    }
+
+    // Antes de nombrar las restricciones de users, username y email eran @Column(unique = true) y Hibernate
+    // creó claves únicas con nombres generados (UK...). ddl-auto=update agrega las nuevas pero no borra
+    // esas, y un registro repetido que chocara con una de ellas no se reconocería por el nombre
+    private void dropLegacyUserUniqueKeys(Dialect dialect) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("""
+                select tc.constraint_name, kcu.column_name
+                from information_schema.table_constraints tc
+                join information_schema.key_column_usage kcu
+                  on kcu.constraint_schema = tc.constraint_schema
+                 and kcu.constraint_name = tc.constraint_name
+                 and kcu.table_name = tc.table_name
+                where tc.table_schema = schema() and tc.table_name = 'users' and tc.constraint_type = 'UNIQUE'
+                """);
+        Map<String, Set<String>> columnsByConstraint = rows.stream().collect(Collectors.groupingBy(
+                row -> (String) row.get("constraint_name"),
+                Collectors.mapping(row -> ((String) row.get("column_name")).toLowerCase(Locale.ROOT),
+                        Collectors.toSet())));
+
+        Set<String> current = Set.of(User.USERNAME_CONSTRAINT, User.EMAIL_CONSTRAINT);
+        columnsByConstraint.forEach((constraint, columns) -> {
+            boolean legacy = !current.contains(constraint.toLowerCase(Locale.ROOT))
+                    && (columns.equals(Set.of("username")) || columns.equals(Set.of("email")));
+            if (legacy) {
+                try {
+                    jdbcTemplate.execute("alter table users " + dialect.getDropUniqueKeyString() + " " + constraint);
+                    logger.info("Clave única antigua {} de users eliminada (columna {})", constraint, columns);
+                } catch (DataAccessException ex) {
+                    // Otro nodo que arranca a la vez pudo eliminarla primero
+                    logger.warn("No se pudo eliminar la clave única antigua {} de users: {}", constraint, ex.getMessage());
+                }
+            }
+        });
+    }
+}
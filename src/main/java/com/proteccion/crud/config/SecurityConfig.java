@@ -1,12 +1,23 @@
 package com.proteccion.crud.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proteccion.crud.security.ClientIpResolver;
 import com.proteccion.crud.security.JwtAuthenticationEntryPoint;
 import com.proteccion.crud.security.JwtAuthenticationFilter;
 import com.proteccion.crud.security.JwtTokenProvider;
+import com.proteccion.crud.security.OffloadingPasswordEncoder;
+import com.proteccion.crud.security.PasswordHashingExecutor;
+import com.proteccion.crud.security.RateLimitFilter;
+import com.proteccion.crud.security.RateLimiter;
 import com.proteccion.crud.security.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -15,6 +26,7 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -24,6 +36,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -39,14 +52,48 @@ public class SecurityConfig {
     @Autowired
     private UserDetailsServiceImpl userDetailsService;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    @Autowired
+    private ClientIpResolver clientIpResolver;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${app.rateLimit.enabled:true}")
+    private boolean rateLimitEnabled;
+
+    @Value("${app.jwtStatelessAuthentication:true}")
+    private boolean jwtStatelessAuthentication;
+
     @Bean
     public JwtAuthenticationFilter jwtAuthenticationFilter() {
-        return new JwtAuthenticationFilter(tokenProvider, userDetailsService);
+        return new JwtAuthenticationFilter(tokenProvider, userDetailsService, jwtStatelessAuthentication,
+                meterRegistry);
     }
 
+    @Value("${app.passwordEncoderStrength:10}")
+    private int passwordEncoderStrength;
+
+    // Las contraseñas se guardan con prefijo ({bcrypt}...). Los hashes antiguos sin prefijo se siguen
+    // verificando con BCrypt y, como los de otra fuerza, se recalculan al iniciar sesión
+    // (ver UserDetailsServiceImpl.updatePassword). El cálculo se ejecuta en el grupo de contraseñas
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(passwordEncoderStrength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return new OffloadingPasswordEncoder(encoder, passwordHashingExecutor);
     }
 
     @Bean
@@ -81,14 +128,35 @@ public class SecurityConfig {
                         sessionManagement.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 .authorizeHttpRequests(authorize -> authorize
+                        // Los despachos asíncronos (p. ej. exportaciones en streaming) ya se autorizaron
+                        // en el despacho inicial de la solicitud
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
+                        // Sondas; el resto de endpoints de actuator no se exponen
+                        .requestMatchers("/actuator/health").permitAll()
+                        // Scraping de Prometheus: libre solo por el puerto de gestión (management.server.port),
+                        // que no se publica fuera de la red interna; por el puerto de la API exige ser administrador
+                        .requestMatchers(this::isPrometheusOnManagementPort).permitAll()
+                        .requestMatchers("/actuator/prometheus").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 );
 
         // Añadir filtro JWT
         http.addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+        // Límite de solicitudes por usuario (o por IP), ya con la autenticación resuelta. No se declara
+        // como @Bean para que Spring Boot no lo registre además como filtro del servlet
+        if (rateLimitEnabled) {
+            http.addFilterAfter(new RateLimitFilter(rateLimiter, clientIpResolver, objectMapper), JwtAuthenticationFilter.class);
+        }
 
         return http.build();
     }
-}
\ No newline at end of file
+
+    // Spring Boot publica local.management.port al arrancar el servidor de gestión, también con puerto aleatorio
+    private boolean isPrometheusOnManagementPort(HttpServletRequest request) {
+        Integer managementPort = environment.getProperty("local.management.port", Integer.class);
+        return managementPort != null && request.getLocalPort() == managementPort
+                && request.getRequestURI().equals("/actuator/prometheus");
+    }
+}
@@ -0,0 +1,54 @@
+package com.proteccion.crud.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Modo de ejecución con hilos virtuales (Java 21): se activa con {@code spring.threads.virtual.enabled=true}.
+ * Spring Boot pasa entonces Tomcat y el ejecutor de tareas de la aplicación a hilos virtuales; aquí se
+ * limita además el acceso concurrente a la base de datos al tamaño de cada pool de conexiones.
+ *
+ * <p>Con réplicas de lectura cada pool (el primario y cada réplica) tiene su propio límite: una lectura
+ * que va a una réplica no espera por permisos del primario, ni al revés.
+ *
+ * <p>Los hilos virtuales no quedan fijados a su carrier al esperar a MySQL: el driver (Connector/J 9)
+ * y HikariCP 6 usan locks de java.util.concurrent en lugar de bloques synchronized.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    // static: un BeanPostProcessor se crea antes que el resto de beans de la configuración
+    @Bean
+    public static BeanPostProcessor connectionLimiter(Environment environment) {
+        // Sin estas propiedades, cada pool usa su maximumPoolSize y su connectionTimeout
+        Integer permits = environment.getProperty("app.datasource.connectionPermits", Integer.class);
+        Long timeoutInMs = environment.getProperty("app.datasource.connectionPermitTimeoutInMs", Long.class);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // Con réplicas se limitan los pools detrás del enrutamiento, no el DataSource de la aplicación
+                if (bean instanceof ReplicaRoutingDataSource routing) {
+                    routing.decorateTargets(pool -> limit(pool, permits, timeoutInMs));
+                } else if (beanName.equals("dataSource") && bean instanceof HikariDataSource pool) {
+                    return limit(pool, permits, timeoutInMs);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static DataSource limit(DataSource dataSource, Integer permits, Long timeoutInMs) {
+        HikariDataSource pool = (HikariDataSource) dataSource;
+        return new ConcurrencyLimitedDataSource(pool,
+                permits != null ? permits : pool.getMaximumPoolSize(),
+                Duration.ofMillis(timeoutInMs != null ? timeoutInMs : pool.getConnectionTimeout()));
+    }
+}
@@ -1,27 +1,40 @@
 package com.proteccion.crud.controller;
 
+import com.proteccion.crud.exception.BadRequestException;
 import com.proteccion.crud.models.User;
+import com.proteccion.crud.payload.AvailabilityResponse;
 import com.proteccion.crud.payload.JwtAuthenticationResponse;
 import com.proteccion.crud.payload.LoginRequest;
 import com.proteccion.crud.payload.SignUpRequest;
 import com.proteccion.crud.payload.ApiResponse;
 import com.proteccion.crud.repository.UserRepository;
 import com.proteccion.crud.security.JwtTokenProvider;
+import com.proteccion.crud.security.PasswordHashingExecutor;
+import com.proteccion.crud.services.CacheInvalidationBus;
+import com.proteccion.crud.services.UserAvailability;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import jakarta.validation.Valid;
 
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/auth")
 public class AuthController {
@@ -38,43 +51,101 @@ public class AuthController {
     @Autowired
     private JwtTokenProvider tokenProvider;
 
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private UserAvailability userAvailability;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    // Ejecutor de las peticiones asíncronas de Spring MVC
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor asyncExecutor;
+
+    // La autenticación se ejecuta en el ejecutor de MVC y el hilo de Tomcat queda libre. Solo la verificación
+    // de la contraseña (BCrypt) pasa al grupo de contraseñas, a través del PasswordEncoder; la consulta del
+    // usuario y la actualización de un hash antiguo no lo ocupan. Con la cola llena se responde 503
     @PostMapping("/signin")
-    public ResponseEntity<?> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
-        Authentication authentication = authenticationManager.authenticate(
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+        return CompletableFuture.supplyAsync(() -> authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(
                         loginRequest.getUsernameOrEmail(),
                         loginRequest.getPassword()
                 )
-        );
+        ), asyncExecutor).thenApply(authentication -> {
+            String jwt = tokenProvider.generateToken(authentication);
 
-        SecurityContextHolder.getContext().setAuthentication(authentication);
+            return ResponseEntity.ok(new JwtAuthenticationResponse(jwt, "Bearer",
+                    ((org.springframework.security.core.userdetails.UserDetails) authentication.getPrincipal()).getUsername()));
+        });
+    }
 
-        String jwt = tokenProvider.generateToken(authentication);
+    // Sin consultas previas: las restricciones únicas de users deciden, así que el caso normal es un solo
+    // INSERT y dos registros simultáneos con el mismo nombre no pueden pasar ambos. Solo el cálculo del
+    // hash ocupa el grupo de contraseñas; el INSERT y la publicación siguen en el ejecutor de MVC
+    @PostMapping("/signup")
+    public CompletableFuture<ResponseEntity<?>> registerUser(@Valid @RequestBody SignUpRequest signUpRequest) {
+        return passwordHashingExecutor.submit(() -> passwordEncoder.encode(signUpRequest.getPassword()))
+                .thenApplyAsync(encodedPassword -> {
+                    // Crear cuenta de usuario
+                    User user = new User();
+                    user.setUsername(signUpRequest.getUsername());
+                    user.setEmail(signUpRequest.getEmail());
+                    user.setPassword(encodedPassword);
+
+                    try {
+                        userRepository.save(user);
+                    } catch (DataIntegrityViolationException ex) {
+                        return duplicateUserResponse(ex, signUpRequest);
+                    }
+                    userAvailability.add(user.getUsername(), user.getEmail());
+                    // Los demás nodos agregan el usuario a sus filtros y descartan sus búsquedas cacheadas
+                    invalidationBus.publish(CacheInvalidationBus.USERS);
+
+                    return ResponseEntity.ok(new ApiResponse(true, "¡Usuario registrado exitosamente!"));
+                }, asyncExecutor);
+    }
 
-        return ResponseEntity.ok(new JwtAuthenticationResponse(jwt, "Bearer",
-                ((org.springframework.security.core.userdetails.UserDetails) authentication.getPrincipal()).getUsername()));
+    // Las respuestas "disponible" salen del filtro en memoria sin consultar la base de datos
+    @GetMapping("/availability")
+    public ResponseEntity<AvailabilityResponse> checkAvailability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email) {
+        if (username == null && email == null) {
+            throw new BadRequestException("Debe indicar username o email");
+        }
+        return ResponseEntity.ok(new AvailabilityResponse(
+                username != null ? userAvailability.isUsernameAvailable(username) : null,
+                email != null ? userAvailability.isEmailAvailable(email) : null));
     }
 
-    @PostMapping("/signup")
-    public ResponseEntity<?> registerUser(@Valid @RequestBody SignUpRequest signUpRequest) {
-        if (userRepository.existsByUsername(signUpRequest.getUsername())) {
+    // Se reconoce la restricción por su nombre; con otro nombre (por ejemplo, una clave única antigua que
+    // SchemaMigrations aún no eliminó) se comprueba qué valor ya existe
+    private ResponseEntity<?> duplicateUserResponse(DataIntegrityViolationException ex, SignUpRequest signUpRequest) {
+        String constraint = ex.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                ? violation.getConstraintName()
+                : String.valueOf(ex.getMostSpecificCause().getMessage());
+        constraint = constraint.toLowerCase(Locale.ROOT);
+
+        boolean usernameTaken = constraint.contains(User.USERNAME_CONSTRAINT);
+        boolean emailTaken = constraint.contains(User.EMAIL_CONSTRAINT);
+        if (!usernameTaken && !emailTaken) {
+            usernameTaken = userRepository.existsByUsername(signUpRequest.getUsername());
+            emailTaken = !usernameTaken && userRepository.existsByEmail(signUpRequest.getEmail());
+        }
+
+        if (usernameTaken) {
             return new ResponseEntity<>(new ApiResponse(false, "¡El nombre de usuario ya está en uso!"),
                     HttpStatus.BAD_REQUEST);
         }
-
-        if (userRepository.existsByEmail(signUpRequest.getEmail())) {
+        if (emailTaken) {
             return new ResponseEntity<>(new ApiResponse(false, "¡El email ya está en uso!"),
                     HttpStatus.BAD_REQUEST);
         }
-
-        // Crear cuenta de usuario
-        User user = new User();
-        user.setUsername(signUpRequest.getUsername());
-        user.setEmail(signUpRequest.getEmail());
-        user.setPassword(passwordEncoder.encode(signUpRequest.getPassword()));
-
-        userRepository.save(user);
-
-        return ResponseEntity.ok(new ApiResponse(true, "¡Usuario registrado exitosamente!"));
+        throw ex;
     }
 }
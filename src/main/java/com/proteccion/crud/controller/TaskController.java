@@ -1,16 +1,33 @@
 package com.proteccion.crud.controller;
 
 import com.proteccion.crud.dto.TaskDto;
+import com.proteccion.crud.exception.BadRequestException;
+import com.proteccion.crud.payload.BatchItemResult;
+import com.proteccion.crud.payload.CursorPage;
+import com.proteccion.crud.payload.StatusTransitionRequest;
+import com.proteccion.crud.payload.StatusTransitionResponse;
+import com.proteccion.crud.payload.TaskChangesPage;
 import com.proteccion.crud.services.TaskService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -24,9 +41,72 @@ public class TaskController {
     private TaskService taskService;
 
     @GetMapping
-    @Operation(summary = "Get all tasks", description = "Returns all tasks visible to the authenticated user")
-    public ResponseEntity<List<TaskDto>> getAllTasks() {
-        return ResponseEntity.ok(taskService.getAllTasks());
+    @Operation(summary = "Get all tasks",
+            description = "Returns a page of tasks visible to the authenticated user, ordered by id. "
+                    + "With dueFrom, dueTo or overdue=true (not completed and due before today) the page is "
+                    + "filtered by due date and ordered by dueDate. Pass the returned nextCursor to get the "
+                    + "following page")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = CursorPage.class)))
+    public ResponseEntity<byte[]> getAllTasks(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueTo,
+            @RequestParam(defaultValue = "false") boolean overdue,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + TaskService.DEFAULT_PAGE_SIZE) int limit) {
+        // La página llega ya serializada desde la caché de listados
+        byte[] body = dueFrom != null || dueTo != null || overdue
+                ? taskService.getTasksByDueDateJson(null, dueFrom, dueTo, overdue, cursor, limit)
+                : taskService.getAllTasksJson(cursor, limit);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    @GetMapping("/changes")
+    @Operation(summary = "Get task changes",
+            description = "Returns the tasks created, updated or deleted (deleted=true) since the given change "
+                    + "version, ordered by version. Follow nextCursor while present; then store the returned "
+                    + "version and pass it as since on the next poll")
+    public ResponseEntity<TaskChangesPage> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + TaskService.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(taskService.getChanges(since, cursor, limit));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream task changes",
+            description = "Server-Sent Events with the tasks the user created or is assigned (all tasks for "
+                    + "admins) as they are created, updated or deleted. The event id is the change version: "
+                    + "after reconnecting, call /changes with since set to the last id received")
+    public SseEmitter streamTasks() {
+        return taskService.streamTasks();
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Export all tasks",
+            description = "Streams every task as newline-delimited JSON (format=ndjson) or CSV (format=csv). "
+                    + "Admin only")
+    public ResponseEntity<StreamingResponseBody> exportTasks(
+            @RequestParam(defaultValue = "ndjson") String format) {
+        TaskService.ExportFormat exportFormat;
+        try {
+            exportFormat = TaskService.ExportFormat.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Formato de exportación no soportado: " + format);
+        }
+
+        MediaType mediaType = exportFormat == TaskService.ExportFormat.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", StandardCharsets.UTF_8);
+        StreamingResponseBody body = out -> taskService.exportTasks(out, exportFormat);
+
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=tasks." + exportFormat.name().toLowerCase())
+                .body(body);
     }
 
     @GetMapping("/{id}")
@@ -57,9 +137,57 @@ public class TaskController {
         return ResponseEntity.noContent().build();
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Create tasks in bulk",
+            description = "Creates up to " + TaskService.MAX_BATCH_SIZE + " tasks in one transaction "
+                    + "and reports success or failure for each item")
+    public ResponseEntity<List<BatchItemResult>> createTasks(@RequestBody List<TaskDto> tasks) {
+        return ResponseEntity.ok(taskService.createTasks(tasks));
+    }
+
+    @PatchMapping("/batch")
+    @Operation(summary = "Update tasks in bulk",
+            description = "Applies partial updates to up to " + TaskService.MAX_BATCH_SIZE + " tasks (each item "
+                    + "must include its id) and reports success or failure for each item")
+    public ResponseEntity<List<BatchItemResult>> updateTasks(@RequestBody List<TaskDto> tasks) {
+        return ResponseEntity.ok(taskService.updateTasks(tasks));
+    }
+
+    @DeleteMapping("/batch")
+    @Operation(summary = "Delete tasks in bulk",
+            description = "Deletes up to " + TaskService.MAX_BATCH_SIZE + " tasks by id and reports success "
+                    + "or failure for each item")
+    public ResponseEntity<List<BatchItemResult>> deleteTasks(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(taskService.deleteTasks(ids));
+    }
+
+    @PostMapping("/status-transitions")
+    @Operation(summary = "Change the status of many tasks",
+            description = "Moves every task matching the filter (ids, current status, due-date range, assignee) "
+                    + "that the user may update to the target status in a single statement, "
+                    + "and returns the number of tasks updated")
+    public ResponseEntity<StatusTransitionResponse> transitionStatus(
+            @Valid @RequestBody StatusTransitionRequest request) {
+        return ResponseEntity.ok(new StatusTransitionResponse(taskService.transitionStatus(request)));
+    }
+
     @GetMapping("/status/{status}")
-    @Operation(summary = "Get tasks by status", description = "Returns all tasks with the specified status")
-    public ResponseEntity<List<TaskDto>> getTasksByStatus(@PathVariable String status) {
-        return ResponseEntity.ok(taskService.getTasksByStatus(status));
+    @Operation(summary = "Get tasks by status",
+            description = "Returns a page of tasks with the specified status, ordered by id. Accepts the same "
+                    + "dueFrom, dueTo and overdue filters as GET /api/tasks")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = CursorPage.class)))
+    public ResponseEntity<byte[]> getTasksByStatus(
+            @PathVariable String status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dueTo,
+            @RequestParam(defaultValue = "false") boolean overdue,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + TaskService.DEFAULT_PAGE_SIZE) int limit) {
+        byte[] body = dueFrom != null || dueTo != null || overdue
+                ? taskService.getTasksByDueDateJson(status, dueFrom, dueTo, overdue, cursor, limit)
+                : taskService.getTasksByStatusJson(status, cursor, limit);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 }
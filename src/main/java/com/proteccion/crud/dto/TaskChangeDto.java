@@ -0,0 +1,37 @@
+package com.proteccion.crud.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Cambio de una tarea en el feed de cambios: el estado de la tarea en la versión {@code version}.
+ * Si {@code deleted} es true la tarea fue eliminada, o reasignada y el usuario dejó de verla (en ese caso
+ * solo se informa el id), y el cliente debe descartarla.
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class TaskChangeDto extends TaskDto {
+    private long version;
+    private boolean deleted;
+
+    // Constructor usado por el mapeo del resultado SQL del feed de cambios (ver Task)
+    public TaskChangeDto(Long id, String title, String description, LocalDate dueDate, String status,
+                         Long createdById, String createdByUsername, Long assignedToId, String assignedToUsername,
+                         Long version, Boolean deleted) {
+        setId(id);
+        setTitle(title);
+        setDescription(description);
+        setDueDate(dueDate);
+        setStatus(status);
+        setCreatedById(createdById);
+        setCreatedByUsername(createdByUsername);
+        setAssignedToId(assignedToId);
+        setAssignedToUsername(assignedToUsername);
+        this.version = version;
+        this.deleted = deleted;
+    }
+}
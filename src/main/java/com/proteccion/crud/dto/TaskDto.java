@@ -1,13 +1,16 @@
 package com.proteccion.crud.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.proteccion.crud.models.Task;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDate;
 
 @Data
+@NoArgsConstructor
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class TaskDto {
     private Long id;
@@ -27,4 +30,18 @@ public class TaskDto {
 
     private Long assignedToId;
     private String assignedToUsername;
+
+    // Constructor usado por las proyecciones JPQL (select new ...) de los listados de tareas
+    public TaskDto(Long id, String title, String description, LocalDate dueDate, Task.TaskStatus status,
+                   Long createdById, String createdByUsername, Long assignedToId, String assignedToUsername) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.dueDate = dueDate;
+        this.status = status != null ? status.name() : null;
+        this.createdById = createdById;
+        this.createdByUsername = createdByUsername;
+        this.assignedToId = assignedToId;
+        this.assignedToUsername = assignedToUsername;
+    }
 }
@@ -0,0 +1,24 @@
+package com.proteccion.crud.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Excepción para solicitudes con parámetros inválidos.
+ * Se lanza cuando el cliente envía un valor que no se puede interpretar,
+ * por ejemplo un cursor de paginación corrupto o un límite fuera de rango.
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BadRequestException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructor con mensaje de error personalizado.
+     *
+     * @param message El mensaje de error
+     */
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,28 @@
+package com.proteccion.crud.exception;
+
+/**
+ * Excepción para solicitudes que no se pueden atender por saturación temporal.
+ * Se responde con 503 y la cabecera Retry-After (ver GlobalExceptionHandler),
+ * por ejemplo cuando la cola de cálculo de contraseñas está llena.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructor con mensaje de error y tiempo de espera sugerido.
+     *
+     * @param message           El mensaje de error
+     * @param retryAfterSeconds Segundos que el cliente debería esperar antes de reintentar
+     */
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,23 @@
+package com.proteccion.crud.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Versión de un canal de invalidación de cachés entre nodos (ver CacheInvalidationBus).
+ * Quien modifica datos cacheados incrementa la versión del canal en su misma transacción; cada nodo
+ * consulta la tabla periódicamente y vacía las cachés de los canales cuya versión ha cambiado.
+ * La entidad solo define la tabla: el bus la lee y escribe con JDBC.
+ */
+@Data
+@Entity
+@Table(name = "cache_versions")
+public class CacheVersion {
+
+    @Id
+    private String name;
+
+    private long version;
+}
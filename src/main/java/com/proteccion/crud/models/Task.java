@@ -1,18 +1,63 @@
 package com.proteccion.crud.models;
 
+import com.proteccion.crud.dto.TaskChangeDto;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDate;
 
 @Data
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks", indexes = {
+        // Listados de un usuario normal: tareas asignadas o creadas, con y sin filtro de estado
+        @Index(name = "idx_tasks_assigned_to_id", columnList = "assigned_to, id"),
+        @Index(name = "idx_tasks_created_by_id", columnList = "created_by, id"),
+        @Index(name = "idx_tasks_assigned_to_status", columnList = "assigned_to, status, id"),
+        @Index(name = "idx_tasks_created_by_status", columnList = "created_by, status, id"),
+        // Listado por estado de un administrador
+        @Index(name = "idx_tasks_status_id", columnList = "status, id"),
+        // Listados por fecha de vencimiento (dueFrom, dueTo, overdue) de un administrador y de un usuario normal
+        @Index(name = "idx_tasks_due_date", columnList = "due_date, id"),
+        @Index(name = "idx_tasks_status_due", columnList = "status, due_date, id"),
+        @Index(name = "idx_tasks_assigned_to_due", columnList = "assigned_to, due_date, id"),
+        @Index(name = "idx_tasks_created_by_due", columnList = "created_by, due_date, id"),
+        // Feed de cambios (GET /api/tasks/changes) de un administrador y de un usuario normal
+        @Index(name = "idx_tasks_change_version", columnList = "change_version, id"),
+        @Index(name = "idx_tasks_assigned_to_version", columnList = "assigned_to, change_version, id"),
+        @Index(name = "idx_tasks_created_by_version", columnList = "created_by, change_version, id")
+})
+// Las tareas eliminadas se conservan como marcas (tombstones) para el feed de cambios y quedan
+// fuera de todas las consultas de la entidad; el feed las lee con SQL nativo
+@SQLRestriction("deleted = false")
+@SqlResultSetMapping(name = "TaskChangeDto", classes = @ConstructorResult(
+        targetClass = TaskChangeDto.class,
+        columns = {
+                @ColumnResult(name = "id", type = Long.class),
+                @ColumnResult(name = "title", type = String.class),
+                @ColumnResult(name = "description", type = String.class),
+                @ColumnResult(name = "due_date", type = LocalDate.class),
+                @ColumnResult(name = "status", type = String.class),
+                @ColumnResult(name = "created_by_id", type = Long.class),
+                @ColumnResult(name = "created_by_username", type = String.class),
+                @ColumnResult(name = "assigned_to_id", type = Long.class),
+                @ColumnResult(name = "assigned_to_username", type = String.class),
+                @ColumnResult(name = "change_version", type = Long.class),
+                @ColumnResult(name = "deleted", type = Boolean.class)
+        }))
 public class Task {
+    public static final String ID_SEQUENCE = "task_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Secuencia con asignación en bloques de 50 (optimizador pooled): a diferencia de IDENTITY,
+    // Hibernate conoce el id antes del INSERT y puede agrupar las inserciones en lotes JDBC.
+    // En MySQL, que no tiene secuencias, Hibernate la emula con la tabla task_seq. En una base de
+    // datos que usaba IDENTITY, SchemaMigrations la adelanta más allá de los ids existentes
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @NotBlank(message = "El título no puede estar vacío")
@@ -26,6 +71,12 @@ public class Task {
     @Enumerated(EnumType.STRING)
     private TaskStatus status = TaskStatus.TODO;
 
+    // Versión de la transacción que modificó la tarea por última vez (ver TaskChangeVersion)
+    @Column(name = "change_version", nullable = false)
+    private long changeVersion;
+
+    private boolean deleted;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "created_by")
     private User createdBy;
@@ -0,0 +1,25 @@
+package com.proteccion.crud.models;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+/**
+ * Contador (una sola fila) de la última versión de cambios de tareas asignada.
+ * Cada transacción que modifica tareas lo incrementa al confirmar, con la fila bloqueada solo desde ese
+ * momento hasta el COMMIT, de modo que las versiones se confirman en orden: quien ve confirmada la
+ * versión N ve todas las anteriores (ver TaskVersionAllocator).
+ */
+@Data
+@Entity
+@Table(name = "task_change_version")
+public class TaskChangeVersion {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    private long version;
+}
@@ -0,0 +1,31 @@
+package com.proteccion.crud.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+/**
+ * Pérdida de visibilidad de una tarea para un usuario: al reasignarla, el asignado anterior (si no es
+ * el creador) deja de verla. El feed de cambios le envía un tombstone con la versión del cambio para
+ * que la descarte, aunque la tarea siga existiendo para los demás.
+ */
+@Data
+@Entity
+@Table(name = "task_revocations", indexes = {
+        // Feed de cambios de un usuario normal
+        @Index(name = "idx_task_revocations_user_version", columnList = "user_id, change_version, task_id")
+})
+public class TaskRevocation {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "task_revocation_seq")
+    @SequenceGenerator(name = "task_revocation_seq", sequenceName = "task_revocation_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "task_id", nullable = false)
+    private Long taskId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "change_version", nullable = false)
+    private long changeVersion;
+}
@@ -0,0 +1,31 @@
+package com.proteccion.crud.payload;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// Disponibilidad de los valores consultados; los que no se consultaron se omiten
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AvailabilityResponse {
+    private Boolean usernameAvailable;
+    private Boolean emailAvailable;
+
+    public AvailabilityResponse(Boolean usernameAvailable, Boolean emailAvailable) {
+        this.usernameAvailable = usernameAvailable;
+        this.emailAvailable = emailAvailable;
+    }
+
+    public Boolean getUsernameAvailable() {
+        return usernameAvailable;
+    }
+
+    public void setUsernameAvailable(Boolean usernameAvailable) {
+        this.usernameAvailable = usernameAvailable;
+    }
+
+    public Boolean getEmailAvailable() {
+        return emailAvailable;
+    }
+
+    public void setEmailAvailable(Boolean emailAvailable) {
+        this.emailAvailable = emailAvailable;
+    }
+}
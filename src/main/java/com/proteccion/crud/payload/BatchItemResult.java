@@ -0,0 +1,59 @@
+package com.proteccion.crud.payload;
+
+/**
+ * Resultado de una operación individual dentro de una operación por lotes.
+ * {@code index} es la posición del elemento en la solicitud.
+ */
+public class BatchItemResult {
+    private int index;
+    private Long id;
+    private Boolean success;
+    private String message;
+
+    public BatchItemResult(int index, Long id, Boolean success, String message) {
+        this.index = index;
+        this.id = id;
+        this.success = success;
+        this.message = message;
+    }
+
+    public static BatchItemResult ok(int index, Long id) {
+        return new BatchItemResult(index, id, true, null);
+    }
+
+    public static BatchItemResult failed(int index, Long id, String message) {
+        return new BatchItemResult(index, id, false, message);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Boolean getSuccess() {
+        return success;
+    }
+
+    public void setSuccess(Boolean success) {
+        this.success = success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
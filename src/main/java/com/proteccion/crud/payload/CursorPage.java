@@ -0,0 +1,34 @@
+package com.proteccion.crud.payload;
+
+import java.util.List;
+
+/**
+ * Página de resultados con paginación por cursor.
+ * {@code nextCursor} es un valor opaco que el cliente envía para obtener la página siguiente;
+ * es null cuando no hay más resultados.
+ */
+public class CursorPage<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
@@ -0,0 +1,73 @@
+package com.proteccion.crud.payload;
+
+import jakarta.validation.constraints.NotBlank;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Solicitud de cambio masivo de estado. Los filtros informados se combinan con AND;
+ * debe indicarse al menos uno.
+ */
+public class StatusTransitionRequest {
+    private List<Long> ids;
+
+    private String currentStatus;
+
+    private LocalDate dueFrom;
+
+    private LocalDate dueTo;
+
+    private Long assignedToId;
+
+    @NotBlank(message = "El estado destino es obligatorio")
+    private String targetStatus;
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public String getCurrentStatus() {
+        return currentStatus;
+    }
+
+    public void setCurrentStatus(String currentStatus) {
+        this.currentStatus = currentStatus;
+    }
+
+    public LocalDate getDueFrom() {
+        return dueFrom;
+    }
+
+    public void setDueFrom(LocalDate dueFrom) {
+        this.dueFrom = dueFrom;
+    }
+
+    public LocalDate getDueTo() {
+        return dueTo;
+    }
+
+    public void setDueTo(LocalDate dueTo) {
+        this.dueTo = dueTo;
+    }
+
+    public Long getAssignedToId() {
+        return assignedToId;
+    }
+
+    public void setAssignedToId(Long assignedToId) {
+        this.assignedToId = assignedToId;
+    }
+
+    public String getTargetStatus() {
+        return targetStatus;
+    }
+
+    public void setTargetStatus(String targetStatus) {
+        this.targetStatus = targetStatus;
+    }
+}
@@ -0,0 +1,17 @@
+package com.proteccion.crud.payload;
+
+public class StatusTransitionResponse {
+    private int updated;
+
+    public StatusTransitionResponse(int updated) {
+        this.updated = updated;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+}
@@ -0,0 +1,47 @@
+package com.proteccion.crud.payload;
+
+import com.proteccion.crud.dto.TaskChangeDto;
+
+import java.util.List;
+
+/**
+ * Página del feed de cambios de tareas.
+ * Mientras {@code nextCursor} no sea null hay más cambios: el cliente lo envía junto con el mismo
+ * {@code since}. En la última página, {@code version} es la versión hasta la que el cliente queda
+ * sincronizado y la que debe enviar como {@code since} en la siguiente consulta.
+ */
+public class TaskChangesPage {
+    private List<TaskChangeDto> items;
+    private String nextCursor;
+    private long version;
+
+    public TaskChangesPage(List<TaskChangeDto> items, String nextCursor, long version) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.version = version;
+    }
+
+    public List<TaskChangeDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<TaskChangeDto> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -1,16 +1,159 @@
 package com.proteccion.crud.repository;
 
+import com.proteccion.crud.dto.TaskChangeDto;
+import com.proteccion.crud.dto.TaskDto;
 import com.proteccion.crud.models.Task;
 import com.proteccion.crud.models.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskRepositoryCustom {
     List<Task> findByAssignedTo(User user);
     List<Task> findByCreatedBy(User user);
     List<Task> findByAssignedToOrCreatedBy(User assignedTo, User createdBy);
     List<Task> findByStatus(Task.TaskStatus status);
+
+    // Consultas de paginación por clave (keyset): WHERE id > :afterId ORDER BY id LIMIT :limit.
+    // Devuelven directamente el DTO con los usernames en una sola consulta con join, en lugar de
+    // cargar cada creador y asignado de forma perezosa (N+1).
+
+    String TASK_DTO_SELECT = "select new com.proteccion.crud.dto.TaskDto("
+            + "t.id, t.title, t.description, t.dueDate, t.status, cb.id, cb.username, at.id, at.username) "
+            + "from Task t left join t.createdBy cb left join t.assignedTo at ";
+
+    @Query(TASK_DTO_SELECT + "where t.id > :afterId order by t.id")
+    List<TaskDto> findPage(@Param("afterId") long afterId, Limit limit);
+
+    @Query(TASK_DTO_SELECT + "where t.status = :status and t.id > :afterId order by t.id")
+    List<TaskDto> findPageByStatus(@Param("status") Task.TaskStatus status,
+                                   @Param("afterId") long afterId, Limit limit);
+
+    // Para un usuario normal la visibilidad (asignada o creada por él) se resuelve con dos
+    // búsquedas por índice, una por cada columna, que el servicio combina por id. Un OR entre
+    // ambas columnas impediría usar los índices compuestos de la tabla tasks.
+
+    @Query(TASK_DTO_SELECT + "where t.assignedTo.id = :userId and t.id > :afterId order by t.id")
+    List<TaskDto> findAssignedPage(@Param("userId") Long userId, @Param("afterId") long afterId, Limit limit);
+
+    @Query(TASK_DTO_SELECT + "where t.createdBy.id = :userId and t.id > :afterId order by t.id")
+    List<TaskDto> findCreatedPage(@Param("userId") Long userId, @Param("afterId") long afterId, Limit limit);
+
+    @Query(TASK_DTO_SELECT + "where t.assignedTo.id = :userId and t.status = :status and t.id > :afterId "
+            + "order by t.id")
+    List<TaskDto> findAssignedPageByStatus(@Param("userId") Long userId, @Param("status") Task.TaskStatus status,
+                                           @Param("afterId") long afterId, Limit limit);
+
+    @Query(TASK_DTO_SELECT + "where t.createdBy.id = :userId and t.status = :status and t.id > :afterId "
+            + "order by t.id")
+    List<TaskDto> findCreatedPageByStatus(@Param("userId") Long userId, @Param("status") Task.TaskStatus status,
+                                          @Param("afterId") long afterId, Limit limit);
+
+    // Listados por fecha de vencimiento: rango [cursor, dueTo] recorrido por clave (due_date, id). La cota
+    // inferior dueDate >= :afterDue es redundante con la condición de clave, pero acota el rango por ambos
+    // lados. Un administrador usa (due_date, id) o, si filtra por estado, (status, due_date, id); un usuario
+    // normal (assigned_to, due_date, id) y (created_by, due_date, id), con los estados como filtro residual.
+
+    String TASK_DUE_RANGE = "t.dueDate >= :afterDue and t.dueDate <= :dueTo "
+            + "and (t.dueDate > :afterDue or (t.dueDate = :afterDue and t.id > :afterId)) order by t.dueDate, t.id";
+
+    @Query(TASK_DTO_SELECT + "where " + TASK_DUE_RANGE)
+    List<TaskDto> findDuePage(@Param("dueTo") LocalDate dueTo, @Param("afterDue") LocalDate afterDue,
+                              @Param("afterId") long afterId, Limit limit);
+
+    @Query(TASK_DTO_SELECT + "where t.status in :statuses and " + TASK_DUE_RANGE)
+    List<TaskDto> findDuePageByStatus(@Param("statuses") Collection<Task.TaskStatus> statuses,
+                                      @Param("dueTo") LocalDate dueTo, @Param("afterDue") LocalDate afterDue,
+                                      @Param("afterId") long afterId, Limit limit);
+
+    @Query(TASK_DTO_SELECT + "where t.assignedTo.id = :userId and t.status in :statuses and " + TASK_DUE_RANGE)
+    List<TaskDto> findAssignedDuePage(@Param("userId") Long userId,
+                                      @Param("statuses") Collection<Task.TaskStatus> statuses,
+                                      @Param("dueTo") LocalDate dueTo, @Param("afterDue") LocalDate afterDue,
+                                      @Param("afterId") long afterId, Limit limit);
+
+    @Query(TASK_DTO_SELECT + "where t.createdBy.id = :userId and t.status in :statuses and " + TASK_DUE_RANGE)
+    List<TaskDto> findCreatedDuePage(@Param("userId") Long userId,
+                                     @Param("statuses") Collection<Task.TaskStatus> statuses,
+                                     @Param("dueTo") LocalDate dueTo, @Param("afterDue") LocalDate afterDue,
+                                     @Param("afterId") long afterId, Limit limit);
+
+    // Carga de una tarea con la autorización en la misma consulta: si el usuario no puede verla o
+    // modificarla no se lee ninguna fila. Con admin = true no se filtra por usuario. El filtro usa las
+    // columnas created_by/assigned_to sin join: el creador y el asignado se resuelven desde la caché de
+    // segundo nivel de usuarios, que un fetch join se saltaría (volvería a leer ambos usuarios y sus roles).
+
+    String TASK_BY_ID = "select t from Task t where t.id = :id and ";
+
+    // Ver: el creador o el asignado
+    @Query(TASK_BY_ID + "(:admin = true or t.createdBy.id = :userId or t.assignedTo.id = :userId)")
+    Optional<Task> findVisibleById(@Param("id") Long id, @Param("userId") Long userId,
+                                   @Param("admin") boolean admin);
+
+    // Actualizar: por ahora los mismos usuarios que pueden verla
+    default Optional<Task> findEditableById(Long id, Long userId, boolean admin) {
+        return findVisibleById(id, userId, admin);
+    }
+
+    // Eliminar: solo el creador
+    @Query(TASK_BY_ID + "(:admin = true or t.createdBy.id = :userId)")
+    Optional<Task> findDeletableById(@Param("id") Long id, @Param("userId") Long userId,
+                                     @Param("admin") boolean admin);
+
+    // Feed de cambios: tareas (incluidas las eliminadas) con versión en (since, upTo], por clave
+    // (change_version, id). Es SQL nativo porque las consultas de la entidad excluyen las eliminadas.
+    // Como en los listados, la visibilidad de un usuario normal se resuelve con dos búsquedas por índice.
+
+    String TASK_CHANGE_SELECT = "select t.id, t.title, t.description, t.due_date, t.status, "
+            + "cb.id as created_by_id, cb.username as created_by_username, "
+            + "at.id as assigned_to_id, at.username as assigned_to_username, t.change_version, t.deleted "
+            + "from tasks t left join users cb on cb.id = t.created_by left join users at on at.id = t.assigned_to ";
+
+    String TASK_CHANGE_RANGE = "(t.change_version > :version or (t.change_version = :version and t.id > :afterId)) "
+            + "and t.change_version <= :upTo order by t.change_version, t.id limit :limit";
+
+    @NativeQuery(value = TASK_CHANGE_SELECT + "where " + TASK_CHANGE_RANGE, sqlResultSetMapping = "TaskChangeDto")
+    List<TaskChangeDto> findChanges(@Param("version") long version, @Param("afterId") long afterId,
+                                    @Param("upTo") long upTo, @Param("limit") int limit);
+
+    @NativeQuery(value = TASK_CHANGE_SELECT + "where t.assigned_to = :userId and " + TASK_CHANGE_RANGE,
+            sqlResultSetMapping = "TaskChangeDto")
+    List<TaskChangeDto> findAssignedChanges(@Param("userId") Long userId, @Param("version") long version,
+                                            @Param("afterId") long afterId, @Param("upTo") long upTo,
+                                            @Param("limit") int limit);
+
+    @NativeQuery(value = TASK_CHANGE_SELECT + "where t.created_by = :userId and " + TASK_CHANGE_RANGE,
+            sqlResultSetMapping = "TaskChangeDto")
+    List<TaskChangeDto> findCreatedChanges(@Param("userId") Long userId, @Param("version") long version,
+                                           @Param("afterId") long afterId, @Param("upTo") long upTo,
+                                           @Param("limit") int limit);
+
+    // Elimina las tareas dejando una marca con la versión del cambio
+    @Modifying
+    @Query("update Task t set t.deleted = true, t.changeVersion = :version where t.id in :ids")
+    int markDeleted(@Param("ids") Collection<Long> ids, @Param("version") long version);
+
+    // Recorre todas las tareas sin materializarlas en memoria; el llamador debe cerrar el Stream
+    // dentro de una transacción y limpiar el contexto de persistencia a medida que avanza
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select t from Task t left join fetch t.createdBy left join fetch t.assignedTo order by t.id")
+    Stream<Task> streamAll();
 }
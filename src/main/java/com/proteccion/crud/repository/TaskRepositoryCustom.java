@@ -0,0 +1,24 @@
+package com.proteccion.crud.repository;
+
+import com.proteccion.crud.models.Task;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * Operaciones de {@link TaskRepository} que se construyen dinámicamente con la API Criteria.
+ */
+public interface TaskRepositoryCustom {
+
+    /**
+     * Cambia el estado de todas las tareas que cumplen los filtros con una sola sentencia UPDATE.
+     * Los filtros nulos no se aplican. Si {@code visibleToUserId} no es null, solo se actualizan
+     * las tareas creadas por ese usuario o asignadas a él. Las tareas actualizadas reciben la versión
+     * de cambio {@code changeVersion}.
+     *
+     * @return El número de tareas actualizadas
+     */
+    int updateStatus(Task.TaskStatus targetStatus, Collection<Long> ids, Task.TaskStatus currentStatus,
+                     LocalDate dueFrom, LocalDate dueTo, Long assignedToId, Long visibleToUserId,
+                     long changeVersion);
+}
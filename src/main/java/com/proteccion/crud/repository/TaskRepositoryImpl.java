@@ -0,0 +1,60 @@
+package com.proteccion.crud.repository;
+
+import com.proteccion.crud.models.Task;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+class TaskRepositoryImpl implements TaskRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int updateStatus(Task.TaskStatus targetStatus, Collection<Long> ids, Task.TaskStatus currentStatus,
+                            LocalDate dueFrom, LocalDate dueTo, Long assignedToId, Long visibleToUserId,
+                            long changeVersion) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Task> update = cb.createCriteriaUpdate(Task.class);
+        Root<Task> task = update.from(Task.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.isFalse(task.get("deleted")));
+        // Solo cuenta las tareas que realmente cambian de estado
+        predicates.add(cb.notEqual(task.get("status"), targetStatus));
+        if (ids != null && !ids.isEmpty()) {
+            predicates.add(task.get("id").in(ids));
+        }
+        if (currentStatus != null) {
+            predicates.add(cb.equal(task.get("status"), currentStatus));
+        }
+        if (dueFrom != null) {
+            predicates.add(cb.greaterThanOrEqualTo(task.get("dueDate"), dueFrom));
+        }
+        if (dueTo != null) {
+            predicates.add(cb.lessThanOrEqualTo(task.get("dueDate"), dueTo));
+        }
+        if (assignedToId != null) {
+            predicates.add(cb.equal(task.get("assignedTo").get("id"), assignedToId));
+        }
+        // Misma regla de autorización que al actualizar una tarea: creador o asignado
+        if (visibleToUserId != null) {
+            predicates.add(cb.or(
+                    cb.equal(task.get("createdBy").get("id"), visibleToUserId),
+                    cb.equal(task.get("assignedTo").get("id"), visibleToUserId)));
+        }
+
+        update.set(task.<Task.TaskStatus>get("status"), targetStatus)
+                .set(task.<Long>get("changeVersion"), changeVersion)
+                .where(predicates.toArray(Predicate[]::new));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+}
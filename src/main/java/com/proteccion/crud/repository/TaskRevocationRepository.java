@@ -0,0 +1,28 @@
+package com.proteccion.crud.repository;
+
+import com.proteccion.crud.dto.TaskChangeDto;
+import com.proteccion.crud.models.TaskRevocation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TaskRevocationRepository extends JpaRepository<TaskRevocation, Long> {
+
+    // Tombstones del feed de cambios de un usuario por las tareas que dejó de ver, con versión en
+    // (since, upTo] y por la misma clave (versión, id de la tarea) que TaskRepository.findAssignedChanges.
+    // Solo llevan el id: el usuario ya no puede ver el contenido de la tarea.
+    @NativeQuery(value = "select r.task_id as id, null as title, null as description, null as due_date, "
+            + "null as status, null as created_by_id, null as created_by_username, null as assigned_to_id, "
+            + "null as assigned_to_username, r.change_version, true as deleted "
+            + "from task_revocations r where r.user_id = :userId "
+            + "and (r.change_version > :version or (r.change_version = :version and r.task_id > :afterId)) "
+            + "and r.change_version <= :upTo order by r.change_version, r.task_id limit :limit",
+            sqlResultSetMapping = "TaskChangeDto")
+    List<TaskChangeDto> findRevokedChanges(@Param("userId") Long userId, @Param("version") long version,
+                                           @Param("afterId") long afterId, @Param("upTo") long upTo,
+                                           @Param("limit") int limit);
+}
@@ -1,15 +1,39 @@
 package com.proteccion.crud.repository;
 
 import com.proteccion.crud.models.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+    // Se consulta en cada inicio de sesión y en la autenticación respaldada por base de datos;
+    // el resultado (el id) va a la caché de consultas y el usuario a la caché de segundo nivel
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
     Boolean existsByUsername(String username);
     Boolean existsByEmail(String email);
+
+    // Recorre el id, nombre y email de los usuarios con id mayor que afterId para construir los filtros
+    // de disponibilidad (ver UserAvailability); el llamador debe cerrar el Stream dentro de una transacción
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("select u.id, u.username, u.email from User u where u.id > :afterId")
+    Stream<Object[]> streamUsernamesAndEmails(@Param("afterId") long afterId);
+
+    // Comprueba en una sola consulta qué ids existen, sin cargar los usuarios ni sus roles
+    @Query("select u.id from User u where u.id in :ids")
+    Set<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,92 @@
+package com.proteccion.crud.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Determina la IP del cliente para el {@link RateLimitFilter}. Detrás de un balanceador o proxy inverso
+ * {@code getRemoteAddr()} es la IP del proxy, y todos los clientes compartirían una misma cubeta.
+ *
+ * <p>Solo se confía en la cabecera {@code app.rateLimit.clientIpHeader} (por defecto X-Forwarded-For)
+ * cuando la conexión llega de uno de los proxies de {@code app.rateLimit.trustedProxies} (IPs o rangos
+ * CIDR). La cabecera se recorre de derecha a izquierda saltando los proxies de confianza: la primera
+ * dirección restante es la que vio el último proxy propio, y las que un cliente agregue a la izquierda
+ * no cambian su cubeta. Sin proxies configurados se usa siempre la IP de la conexión.
+ */
+@Component
+public class ClientIpResolver {
+
+    @Value("${app.rateLimit.trustedProxies:}")
+    private String[] trustedProxies;
+
+    @Value("${app.rateLimit.clientIpHeader:X-Forwarded-For}")
+    private String clientIpHeader;
+
+    private List<IpAddressMatcher> trusted;
+
+    @PostConstruct
+    public void init() {
+        trusted = Arrays.stream(trustedProxies)
+                .map(String::trim)
+                .filter(proxy -> !proxy.isEmpty())
+                .map(IpAddressMatcher::new)
+                .toList();
+    }
+
+    public String resolve(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (trusted.isEmpty() || !isTrusted(remoteAddr)) {
+            return remoteAddr;
+        }
+
+        // Puede haber varias cabeceras; el orden de las direcciones es el de llegada a cada proxy
+        List<String> forwarded = new ArrayList<>();
+        for (String header : Collections.list(request.getHeaders(clientIpHeader))) {
+            for (String address : header.split(",")) {
+                forwarded.add(address.trim());
+            }
+        }
+        String client = remoteAddr;
+        for (int i = forwarded.size() - 1; i >= 0; i--) {
+            String address = forwarded.get(i);
+            // Una entrada que no es una IP (vacía, "unknown", un nombre) corta la cadena de confianza
+            if (!isIpAddress(address)) {
+                break;
+            }
+            client = address;
+            if (!isTrusted(address)) {
+                break;
+            }
+        }
+        return client;
+    }
+
+    private boolean isTrusted(String address) {
+        return trusted.stream().anyMatch(matcher -> matcher.matches(address));
+    }
+
+    // Sin resolver nombres: IPv4 solo con dígitos y puntos; IPv6 con dígitos hexadecimales, puntos y dos puntos
+    private static boolean isIpAddress(String address) {
+        if (address.isEmpty() || address.length() > 45) {
+            return false;
+        }
+        boolean ipv6 = address.indexOf(':') >= 0;
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+            boolean valid = c == '.' || c >= '0' && c <= '9'
+                    || ipv6 && (c == ':' || Character.digit(c, 16) >= 0);
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
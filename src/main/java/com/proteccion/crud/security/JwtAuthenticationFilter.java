@@ -1,5 +1,9 @@
 package com.proteccion.crud.security;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -7,6 +11,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -15,6 +20,7 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Filtro para procesar y validar tokens JWT en cada solicitud.
@@ -25,6 +31,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsServiceImpl userDetailsService;
+    private final boolean statelessAuthentication;
+
+    // Tiempo de autenticación por resultado (sin incluir el resto de la cadena de filtros)
+    private final Timer authenticatedTimer;
+    private final Timer anonymousTimer;
+    private final Timer rejectedTimer;
+    private final Timer errorTimer;
 
     /**
      * Constructor que recibe las dependencias necesarias.
@@ -33,8 +46,46 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      * @param userDetailsService Servicio para cargar detalles de usuario
      */
     public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, UserDetailsServiceImpl userDetailsService) {
+        this(tokenProvider, userDetailsService, false);
+    }
+
+    /**
+     * Constructor que permite elegir el modo de autenticación.
+     *
+     * @param tokenProvider           Proveedor de tokens JWT
+     * @param userDetailsService      Servicio para cargar detalles de usuario
+     * @param statelessAuthentication Si es true, la autenticación se construye con los claims del token
+     *                                sin consultar la base de datos; si es false, se carga el usuario
+     */
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, UserDetailsServiceImpl userDetailsService,
+                                   boolean statelessAuthentication) {
+        this(tokenProvider, userDetailsService, statelessAuthentication, new CompositeMeterRegistry());
+    }
+
+    /**
+     * Constructor que además publica las métricas del filtro.
+     *
+     * @param tokenProvider           Proveedor de tokens JWT
+     * @param userDetailsService      Servicio para cargar detalles de usuario
+     * @param statelessAuthentication Modo de autenticación (ver constructor anterior)
+     * @param meterRegistry           Registro donde se publica el temporizador {@code jwt.filter}
+     */
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, UserDetailsServiceImpl userDetailsService,
+                                   boolean statelessAuthentication, MeterRegistry meterRegistry) {
         this.tokenProvider = tokenProvider;
         this.userDetailsService = userDetailsService;
+        this.statelessAuthentication = statelessAuthentication;
+        this.authenticatedTimer = filterTimer(meterRegistry, "authenticated");
+        this.anonymousTimer = filterTimer(meterRegistry, "anonymous");
+        this.rejectedTimer = filterTimer(meterRegistry, "rejected");
+        this.errorTimer = filterTimer(meterRegistry, "error");
+    }
+
+    private static Timer filterTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("jwt.filter")
+                .description("Autenticación JWT por solicitud, por resultado")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     @Override
@@ -42,30 +93,50 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     @NonNull HttpServletResponse response,
                                     @NonNull FilterChain filterChain)
             throws ServletException, IOException {
+        long start = System.nanoTime();
+        Timer outcome = anonymousTimer;
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromJwt(jwt);
+            // El token se verifica y se parsea una sola vez por solicitud
+            Claims claims = StringUtils.hasText(jwt) ? tokenProvider.parseClaims(jwt) : null;
 
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
+            if (claims != null) {
+                AbstractAuthenticationToken authentication = statelessAuthentication
+                        ? (AbstractAuthenticationToken) tokenProvider.getAuthentication(claims, jwt)
+                        : loadAuthentication(claims.getSubject());
                 authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                outcome = authenticatedTimer;
+            } else if (StringUtils.hasText(jwt)) {
+                outcome = rejectedTimer;
             }
         } catch (Exception ex) {
+            outcome = errorTimer;
             LOG.error("No se pudo establecer la autenticación del usuario en el contexto de seguridad", ex);
         }
+        outcome.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Construye la autenticación consultando el usuario en la base de datos.
+     * Es el modo de respaldo cuando la autenticación sin estado está desactivada.
+     *
+     * @param username Nombre de usuario contenido en el token
+     * @return La autenticación con las autoridades actuales del usuario
+     */
+    private AbstractAuthenticationToken loadAuthentication(String username) {
+        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        return new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
+        );
+    }
+
     /**
      * Extrae el token JWT del encabezado Authorization de la solicitud.
      *
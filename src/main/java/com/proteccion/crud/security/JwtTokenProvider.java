@@ -3,8 +3,15 @@ package com.proteccion.crud.security;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -17,6 +24,8 @@ import java.security.Key;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Component
@@ -30,9 +39,73 @@ public class JwtTokenProvider {
     @Value("${app.jwtExpirationInMs}")
     private int jwtExpirationInMs;
 
-    // Genera la clave de firma utilizando el secreto definido en application.properties
+    @Value("${app.jwtCacheMaxSize:10000}")
+    private int jwtCacheMaxSize;
+
+    @Value("${app.jwtCacheTtlInMs:300000}")
+    private long jwtCacheTtlInMs;
+
+    // Opcional: fuera de un contexto de Spring (pruebas, benchmarks) las métricas no se publican
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    private Key signingKey;
+    private JwtParser jwtParser;
+    private VerifiedTokenCache tokenCache;
+
+    // Temporizadores de validación por resultado, registrados una sola vez
+    private Timer validTimer;
+    private Timer cachedTimer;
+    private Timer signatureTimer;
+    private Timer malformedTimer;
+    private Timer expiredTimer;
+    private Timer unsupportedTimer;
+    private Timer emptyTimer;
+
+    // Construye una sola vez la clave de firma, el parser, la caché de tokens verificados y sus métricas
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        tokenCache = new VerifiedTokenCache(jwtCacheMaxSize, jwtCacheTtlInMs);
+
+        MeterRegistry registry = meterRegistry != null ? meterRegistry : new CompositeMeterRegistry();
+        validTimer = validationTimer(registry, "valid");
+        cachedTimer = validationTimer(registry, "cached");
+        signatureTimer = validationTimer(registry, "signature");
+        malformedTimer = validationTimer(registry, "malformed");
+        expiredTimer = validationTimer(registry, "expired");
+        unsupportedTimer = validationTimer(registry, "unsupported");
+        emptyTimer = validationTimer(registry, "empty");
+
+        FunctionCounter.builder("jwt.cache.hits", tokenCache, VerifiedTokenCache::getHitCount)
+                .description("Validaciones servidas desde la caché de tokens verificados")
+                .register(registry);
+        FunctionCounter.builder("jwt.cache.misses", tokenCache, VerifiedTokenCache::getMissCount)
+                .description("Validaciones que tuvieron que comprobar la firma")
+                .register(registry);
+        Gauge.builder("jwt.cache.size", tokenCache, VerifiedTokenCache::size)
+                .description("Tokens verificados en caché")
+                .register(registry);
+    }
+
+    private static Timer validationTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("jwt.validation")
+                .description("Validación de tokens JWT por resultado")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    // Devuelve la clave de firma generada a partir del secreto definido en application.properties
     private Key getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        return signingKey;
+    }
+
+    // Caché de tokens verificados, expuesta para consultar sus contadores de aciertos y fallos
+    public VerifiedTokenCache getTokenCache() {
+        return tokenCache;
     }
 
     // Genera un token JWT para un usuario autenticado
@@ -47,68 +120,98 @@ public class JwtTokenProvider {
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(","));
 
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .setSubject(userPrincipal.getUsername())
-                .claim("roles", authorities)
+                .claim("roles", authorities);
+
+        // Incluye el id del usuario para que los servicios no tengan que buscarlo por username
+        if (userPrincipal instanceof UserPrincipal principal && principal.getId() != null) {
+            builder.claim("uid", principal.getId());
+        }
+
+        return builder
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
                 .signWith(getSigningKey())
                 .compact();
     }
 
-    // Obtiene el nombre de usuario del token JWT
-    public String getUsernameFromJwt(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claims.getSubject();
-    }
-
-    // Valida el token JWT
-    public boolean validateToken(String authToken) {
+    // Valida el token JWT y devuelve sus claims en una sola pasada, o null si no es válido.
+    // Un token ya verificado se sirve desde la caché sin comprobar de nuevo la firma.
+    public Claims parseClaims(String authToken) {
+        if (authToken == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        Claims cached = tokenCache.get(authToken);
+        if (cached != null) {
+            record(cachedTimer, start);
+            return cached;
+        }
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(authToken);
-            return true;
+            Claims claims = jwtParser.parseClaimsJws(authToken).getBody();
+            tokenCache.put(authToken, claims);
+            record(validTimer, start);
+            return claims;
         } catch (SignatureException ex) {
+            record(signatureTimer, start);
             logger.error("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
+            record(malformedTimer, start);
             logger.error("Invalid JWT token");
         } catch (ExpiredJwtException ex) {
+            record(expiredTimer, start);
             logger.error("Expired JWT token");
         } catch (UnsupportedJwtException ex) {
+            record(unsupportedTimer, start);
             logger.error("Unsupported JWT token");
         } catch (IllegalArgumentException ex) {
+            record(emptyTimer, start);
             logger.error("JWT claims string is empty");
         }
-        return false;
+        return null;
+    }
+
+    private static void record(Timer timer, long startNanos) {
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Obtiene el nombre de usuario del token JWT
+    public String getUsernameFromJwt(String token) {
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+
+        return claims.getSubject();
+    }
+
+    // Valida el token JWT
+    public boolean validateToken(String authToken) {
+        return parseClaims(authToken) != null;
     }
 
     // Obtiene la autenticación a partir del token JWT
     public Authentication getAuthentication(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        Claims claims = jwtParser.parseClaimsJws(token).getBody();
+
+        return getAuthentication(claims, token);
+    }
 
+    // Construye la autenticación a partir de claims ya verificados, sin volver a parsear el token
+    public Authentication getAuthentication(Claims claims, String token) {
         String username = claims.getSubject();
 
         // Extrae los roles del token
-        Collection<? extends GrantedAuthority> authorities =
-                Arrays.stream(claims.get("roles").toString().split(","))
+        Object roles = claims.get("roles");
+        Collection<? extends GrantedAuthority> authorities = roles == null
+                ? List.of()
+                : Arrays.stream(roles.toString().split(","))
                         .filter(role -> !role.isEmpty())
                         .map(SimpleGrantedAuthority::new)
                         .collect(Collectors.toList());
 
-        // Crea un UserDetails básico con el nombre de usuario y roles
-        org.springframework.security.core.userdetails.User principal =
-                new org.springframework.security.core.userdetails.User(username, "", authorities);
+        // Crea el principal con el id del usuario (claim uid), el nombre de usuario y roles
+        Object uid = claims.get("uid");
+        Long userId = uid instanceof Number number ? number.longValue() : null;
+        UserPrincipal principal = new UserPrincipal(userId, username, "", authorities);
 
         return new UsernamePasswordAuthenticationToken(principal, token, authorities);
     }
@@ -0,0 +1,36 @@
+package com.proteccion.crud.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Ejecuta el cálculo y la verificación de contraseñas del codificador delegado en el
+ * {@link PasswordHashingExecutor}. Así, durante el inicio de sesión solo el BCrypt ocupa el grupo de
+ * contraseñas: la consulta del usuario y la actualización de un hash antiguo siguen en el hilo que
+ * autentica.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor executor;
+
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executor.call(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executor.call(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // Solo lee el prefijo y la fuerza del hash; no hace falta el grupo de contraseñas
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
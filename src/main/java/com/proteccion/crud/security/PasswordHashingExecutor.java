@@ -0,0 +1,133 @@
+package com.proteccion.crud.security;
+
+import com.proteccion.crud.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta el cálculo y la verificación de contraseñas (BCrypt) en un grupo de hilos propio y acotado,
+ * para que un pico de inicios de sesión no ocupe los hilos de Tomcat que atienden el resto de la API.
+ *
+ * <p>Si todos los hilos están ocupados y la cola está llena, la solicitud se rechaza de inmediato con
+ * {@link ServiceUnavailableException} (503 con Retry-After) en lugar de esperar.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    // Marca los hilos del grupo, para que una llamada síncrona desde uno de ellos no espere a otro
+    private static final ThreadLocal<Boolean> HASHING_THREAD = new ThreadLocal<>();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.passwordHashingThreads:0}")
+    private int threads;
+
+    @Value("${app.passwordHashingQueueCapacity:64}")
+    private int queueCapacity;
+
+    @Value("${app.passwordHashingRetryAfterSeconds:1}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+    private Timer hashingTimer;
+    private Timer waitTimer;
+    private Counter rejected;
+
+    @PostConstruct
+    public void init() {
+        // 0: un hilo por procesador, ya que el cálculo de BCrypt usa CPU de forma intensiva
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(() -> {
+                        HASHING_THREAD.set(Boolean.TRUE);
+                        runnable.run();
+                    }, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        hashingTimer = Timer.builder("password.hashing")
+                .description("Tiempo de cálculo o verificación de contraseñas")
+                .register(meterRegistry);
+        waitTimer = Timer.builder("password.hashing.wait")
+                .description("Tiempo en cola antes de calcular la contraseña")
+                .register(meterRegistry);
+        rejected = Counter.builder("password.hashing.rejected")
+                .description("Solicitudes rechazadas con 503 por la cola de contraseñas llena")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Tareas de contraseñas esperando un hilo libre")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hilos calculando contraseñas")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Ejecuta la tarea en el grupo de contraseñas. Las excepciones de la tarea completan el futuro.
+     *
+     * @throws ServiceUnavailableException si no queda espacio en la cola
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+                return hashingTimer.record(task);
+            }, executor);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new ServiceUnavailableException(
+                    "Demasiadas solicitudes de autenticación, intente de nuevo en unos segundos", retryAfterSeconds);
+        }
+    }
+
+    /**
+     * Ejecuta la tarea en el grupo de contraseñas y espera su resultado. Desde un hilo del grupo la tarea
+     * se ejecuta directamente. Las excepciones de la tarea se relanzan tal cual.
+     *
+     * @throws ServiceUnavailableException si no queda espacio en la cola
+     */
+    public <T> T call(Supplier<T> task) {
+        if (Boolean.TRUE.equals(HASHING_THREAD.get())) {
+            return task.get();
+        }
+        try {
+            return submit(task).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.proteccion.crud.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proteccion.crud.exception.ErrorDetails;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Aplica el {@link RateLimiter} a la API. Se ejecuta después de {@link JwtAuthenticationFilter}:
+ * las solicitudes autenticadas se limitan por usuario y las de /api/auth/** (y las anónimas) por la IP
+ * del cliente (ver {@link ClientIpResolver}).
+ * Las rechazadas reciben 429 con Retry-After; todas las limitadas llevan X-RateLimit-Limit y
+ * X-RateLimit-Remaining.
+ *
+ * <p>El cuerpo del 429 se escribe aquí mismo, con el formato de {@link ErrorDetails}: con sendError el
+ * contenedor despacharía a /error, que la cadena de seguridad no permite sin autenticación.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private final RateLimiter rateLimiter;
+    private final ClientIpResolver clientIpResolver;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * @param rateLimiter      Limitador con las cubetas de tokens
+     * @param clientIpResolver IP del cliente para las solicitudes que se limitan por IP
+     * @param objectMapper     Serializa el cuerpo de las respuestas 429
+     */
+    public RateLimitFilter(RateLimiter rateLimiter, ClientIpResolver clientIpResolver, ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.clientIpResolver = clientIpResolver;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        // Actuator, Swagger y demás rutas fuera de la API no se limitan
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean authenticated = authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken);
+
+        RateLimiter.Group group;
+        if (path.startsWith("/api/auth/")) {
+            group = RateLimiter.Group.AUTH;
+        } else if (HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod())) {
+            group = RateLimiter.Group.READ;
+        } else {
+            group = RateLimiter.Group.WRITE;
+        }
+        String key = group != RateLimiter.Group.AUTH && authenticated
+                ? "user:" + authentication.getName()
+                : "ip:" + clientIpResolver.resolve(request);
+
+        RateLimiter.Decision decision = rateLimiter.tryConsume(group, key);
+        response.setHeader(LIMIT_HEADER, String.valueOf(decision.limit()));
+        response.setHeader(REMAINING_HEADER, String.valueOf(decision.remaining()));
+        if (!decision.allowed()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            objectMapper.writeValue(response.getOutputStream(), new ErrorDetails(new Date(),
+                    "Demasiadas solicitudes, intente de nuevo en " + decision.retryAfterSeconds() + " segundos",
+                    "uri=" + path));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,149 @@
+package com.proteccion.crud.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Limitador de solicitudes por cubeta de tokens (token bucket), con una cubeta por grupo de endpoints
+ * y clave (usuario o IP). Cada cubeta se actualiza con compare-and-set, sin bloqueos, y las cubetas se
+ * guardan en una caché de Caffeine (concurrente y segmentada) que desaloja las que llevan un tiempo
+ * sin usarse: una cubeta inactiva estaría llena de todas formas.
+ */
+@Component
+public class RateLimiter {
+
+    /** Grupos de endpoints con límites independientes. */
+    public enum Group {
+        AUTH, READ, WRITE
+    }
+
+    /**
+     * Resultado de una solicitud de token.
+     *
+     * @param retryAfterSeconds Segundos hasta que haya un token disponible (0 si se permitió)
+     */
+    public record Decision(boolean allowed, long limit, long remaining, long retryAfterSeconds) {
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.rateLimit.auth.capacity:20}")
+    private long authCapacity;
+
+    @Value("${app.rateLimit.auth.refillPerSecond:1}")
+    private double authRefillPerSecond;
+
+    @Value("${app.rateLimit.read.capacity:200}")
+    private long readCapacity;
+
+    @Value("${app.rateLimit.read.refillPerSecond:50}")
+    private double readRefillPerSecond;
+
+    @Value("${app.rateLimit.write.capacity:50}")
+    private long writeCapacity;
+
+    @Value("${app.rateLimit.write.refillPerSecond:10}")
+    private double writeRefillPerSecond;
+
+    @Value("${app.rateLimit.maxBuckets:1000000}")
+    private long maxBuckets;
+
+    @Value("${app.rateLimit.idleEvictionInMs:600000}")
+    private long idleEvictionInMs;
+
+    private final Map<Group, Limit> limits = new EnumMap<>(Group.class);
+    private final Map<Group, Counter> rejected = new EnumMap<>(Group.class);
+    private Cache<Key, Bucket> buckets;
+
+    private record Key(Group group, String id) {
+    }
+
+    private record Limit(long capacity, double tokensPerNano) {
+    }
+
+    @PostConstruct
+    public void init() {
+        limits.put(Group.AUTH, limit(authCapacity, authRefillPerSecond));
+        limits.put(Group.READ, limit(readCapacity, readRefillPerSecond));
+        limits.put(Group.WRITE, limit(writeCapacity, writeRefillPerSecond));
+        for (Group group : Group.values()) {
+            rejected.put(group, Counter.builder("rate.limit.rejected")
+                    .tag("group", group.name().toLowerCase())
+                    .description("Solicitudes rechazadas con 429 por el limitador")
+                    .register(meterRegistry));
+        }
+
+        buckets = Caffeine.newBuilder()
+                .maximumSize(maxBuckets)
+                .expireAfterAccess(Duration.ofMillis(idleEvictionInMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, "rateLimitBuckets");
+    }
+
+    /**
+     * Consume un token de la cubeta del grupo y la clave indicados.
+     *
+     * @param group Grupo de endpoints
+     * @param id    Usuario autenticado o IP del cliente
+     */
+    public Decision tryConsume(Group group, String id) {
+        Limit limit = limits.get(group);
+        long now = System.nanoTime();
+        Bucket bucket = buckets.get(new Key(group, id), key -> new Bucket(limit.capacity(), now));
+        Decision decision = bucket.tryConsume(limit, now);
+        if (!decision.allowed()) {
+            rejected.get(group).increment();
+        }
+        return decision;
+    }
+
+    private static Limit limit(long capacity, double refillPerSecond) {
+        return new Limit(capacity, refillPerSecond / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    // Estado inmutable de la cubeta: tokens disponibles y momento de la última recarga
+    private record State(double tokens, long refilledAt) {
+    }
+
+    private static final class Bucket {
+        private final AtomicReference<State> state;
+
+        private Bucket(long capacity, long now) {
+            this.state = new AtomicReference<>(new State(capacity, now));
+        }
+
+        private Decision tryConsume(Limit limit, long now) {
+            while (true) {
+                State current = state.get();
+                long elapsed = Math.max(0, now - current.refilledAt());
+                double tokens = Math.min(limit.capacity(), current.tokens() + elapsed * limit.tokensPerNano());
+                long refilledAt = Math.max(now, current.refilledAt());
+
+                if (tokens < 1) {
+                    long waitNanos = (long) Math.ceil((1 - tokens) / limit.tokensPerNano());
+                    long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999));
+                    return new Decision(false, limit.capacity(), 0, retryAfter);
+                }
+                State next = new State(tokens - 1, refilledAt);
+                if (state.compareAndSet(current, next)) {
+                    return new Decision(true, limit.capacity(), (long) next.tokens(), 0);
+                }
+            }
+        }
+    }
+}
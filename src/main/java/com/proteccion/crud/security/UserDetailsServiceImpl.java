@@ -2,24 +2,32 @@ package com.proteccion.crud.security;
 
 import com.proteccion.crud.models.User;
 import com.proteccion.crud.repository.UserRepository;
+import com.proteccion.crud.services.CacheInvalidationBus;
+import com.proteccion.crud.services.CacheInvalidationEvent;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Override
     @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
@@ -27,17 +35,8 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado con username: " + username));
 
-        // Convertir roles de usuario a GrantedAuthority
-        List<GrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName().name()))
-                .collect(Collectors.toList());
-
-        // Crear y retornar UserDetails
-        return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                authorities
-        );
+        // Crear y retornar el principal con el id del usuario y sus roles como GrantedAuthority
+        return UserPrincipal.create(user);
     }
 
     // Este método ayuda a cargar un usuario por ID, útil para filtros de JWT
@@ -46,14 +45,32 @@ public class UserDetailsServiceImpl implements UserDetailsService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado con id: " + id));
 
-        List<GrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority(role.getName().name()))
-                .collect(Collectors.toList());
+        return UserPrincipal.create(user);
+    }
+
+    // Spring Security lo invoca tras un inicio de sesión correcto cuando el hash guardado usa un formato
+    // o una fuerza distintos de los actuales (ver SecurityConfig.passwordEncoder)
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+        User user = userRepository.findByUsername(userDetails.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException(
+                        "Usuario no encontrado con username: " + userDetails.getUsername()));
+        user.setPassword(newPassword);
+        invalidationBus.publish(CacheInvalidationBus.USERS);
+
+        return UserPrincipal.create(user);
+    }
 
-        return new org.springframework.security.core.userdetails.User(
-                user.getUsername(),
-                user.getPassword(),
-                authorities
-        );
+    // Un usuario cambió en otro nodo: se descartan los usuarios, sus roles y los resultados de consultas
+    // (findByUsername) de la caché de segundo nivel, que es local a cada nodo
+    @EventListener
+    public void onRemoteInvalidation(CacheInvalidationEvent event) {
+        if (event.channels().contains(CacheInvalidationBus.USERS)) {
+            Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+            cache.evictEntityData(User.class);
+            cache.evictCollectionData(User.class.getName() + ".roles");
+            cache.evictDefaultQueryRegion();
+        }
     }
 }
@@ -0,0 +1,86 @@
+package com.proteccion.crud.security;
+
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Principal del usuario autenticado.
+ * Además del nombre de usuario y las autoridades, conserva el id del usuario y si es administrador,
+ * para que los servicios no tengan que consultar la base de datos para obtenerlos.
+ */
+public class UserPrincipal implements UserDetails {
+
+    private static final String ROLE_ADMIN = Role.RoleName.ROLE_ADMIN.name();
+
+    private final Long id;
+    private final String username;
+    private final String password;
+    private final List<GrantedAuthority> authorities;
+    private final boolean admin;
+
+    /**
+     * Constructor del principal.
+     *
+     * @param id          Id del usuario, o null si el token no lo incluye
+     * @param username    Nombre de usuario
+     * @param password    Contraseña codificada, vacía cuando el principal se construye desde un token
+     * @param authorities Autoridades del usuario
+     */
+    public UserPrincipal(Long id, String username, String password,
+                         Collection<? extends GrantedAuthority> authorities) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.authorities = List.copyOf(authorities);
+        this.admin = this.authorities.stream().anyMatch(a -> ROLE_ADMIN.equals(a.getAuthority()));
+    }
+
+    /**
+     * Crea el principal a partir de la entidad de usuario.
+     *
+     * @param user El usuario
+     * @return El principal con los roles del usuario como autoridades
+     */
+    public static UserPrincipal create(User user) {
+        List<GrantedAuthority> authorities = user.getRoles().stream()
+                .map(role -> new SimpleGrantedAuthority(role.getName().name()))
+                .collect(Collectors.toList());
+
+        return new UserPrincipal(user.getId(), user.getUsername(), user.getPassword(), authorities);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public boolean isAdmin() {
+        return admin;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String toString() {
+        return "UserPrincipal [id=" + id + ", username=" + username + ", authorities=" + authorities + "]";
+    }
+}
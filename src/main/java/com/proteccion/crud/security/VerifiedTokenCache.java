@@ -0,0 +1,134 @@
+package com.proteccion.crud.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Caché acotada de tokens JWT ya verificados.
+ * La clave es el resumen SHA-256 del token, de modo que la caché no retiene los tokens en claro.
+ * Cada entrada caduca como máximo en el instante del claim {@code exp} del token y, cuando se
+ * supera el tamaño máximo, se desaloja la entrada usada hace más tiempo (LRU).
+ */
+public class VerifiedTokenCache {
+
+    private final int maxSize;
+    private final long ttlInMs;
+    private final LongSupplier clock;
+    private final Map<ByteBuffer, Entry> entries;
+    // Lock en lugar de synchronized: en Java 21 un hilo virtual bloqueado en un monitor fija su carrier
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructor de la caché.
+     *
+     * @param maxSize Número máximo de tokens en caché
+     * @param ttlInMs Tiempo máximo que una entrada permanece en caché, en milisegundos
+     */
+    public VerifiedTokenCache(int maxSize, long ttlInMs) {
+        this(maxSize, ttlInMs, System::currentTimeMillis);
+    }
+
+    VerifiedTokenCache(int maxSize, long ttlInMs, LongSupplier clock) {
+        this.maxSize = maxSize;
+        this.ttlInMs = ttlInMs;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ByteBuffer, Entry> eldest) {
+                return size() > VerifiedTokenCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Obtiene los claims de un token verificado previamente.
+     *
+     * @param token El token JWT
+     * @return Los claims, o null si el token no está en caché o su entrada ha caducado
+     */
+    public Claims get(String token) {
+        ByteBuffer key = digest(token);
+        long now = clock.getAsLong();
+        lock.lock();
+        try {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt > now) {
+                hits.increment();
+                return entry.claims;
+            }
+            if (entry != null) {
+                entries.remove(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Guarda los claims de un token cuya firma ya se ha verificado.
+     *
+     * @param token  El token JWT
+     * @param claims Los claims del token
+     */
+    public void put(String token, Claims claims) {
+        if (maxSize <= 0) {
+            return;
+        }
+        long expiresAt = clock.getAsLong() + ttlInMs;
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            expiresAt = Math.min(expiresAt, expiration.getTime());
+        }
+        ByteBuffer key = digest(token);
+        lock.lock();
+        try {
+            entries.put(key, new Entry(claims, expiresAt));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 no está disponible", ex);
+        }
+    }
+
+    private record Entry(Claims claims, long expiresAt) {
+    }
+}
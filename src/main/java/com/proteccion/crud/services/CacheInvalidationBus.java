@@ -0,0 +1,196 @@
+package com.proteccion.crud.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invalidación de cachés en memoria entre nodos sin infraestructura adicional, sobre la tabla
+ * cache_versions (un contador por canal, ver {@link com.proteccion.crud.models.CacheVersion}).
+ *
+ * <p>Quien escribe llama a {@link #publish} dentro de su transacción: el incremento se confirma o se
+ * descarta con los datos. Cada nodo lee la tabla cada {@code app.cacheBus.pollIntervalInMs} (o antes,
+ * si un {@link CacheInvalidationTransport} avisa) y publica un {@link CacheInvalidationEvent} con los
+ * canales que cambiaron, así que una caché queda obsoleta como mucho un intervalo de sondeo. Los
+ * cambios del propio nodo no se vuelven a notificar: sus cachés ya se invalidaron localmente.
+ */
+@Component
+public class CacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    // Usuarios y sus roles (registro, cambio de contraseña)
+    public static final String USERS = "users";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired(required = false)
+    private List<CacheInvalidationTransport> transports = List.of();
+
+    @Value("${app.cacheBus.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.cacheBus.pollIntervalInMs:1000}")
+    private long pollIntervalInMs;
+
+    // Última versión conocida de cada canal: hasta ella, las cachés de este nodo están al día
+    private final Map<String, Long> knownVersions = new ConcurrentHashMap<>();
+    private volatile boolean started;
+
+    private ScheduledExecutorService poller;
+    private Counter remoteInvalidations;
+
+    @PostConstruct
+    public void init() {
+        remoteInvalidations = Counter.builder("cache.bus.remote.invalidations")
+                .description("Canales invalidados por cambios hechos en otros nodos")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled || started) {
+            return;
+        }
+        // La primera lectura solo registra las versiones actuales: las cachés todavía están vacías
+        checkForChanges();
+        started = true;
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-bus-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::checkForChanges, pollIntervalInMs, pollIntervalInMs,
+                TimeUnit.MILLISECONDS);
+        transports.forEach(transport -> transport.start(this::requestCheck));
+    }
+
+    @PreDestroy
+    public void stop() {
+        transports.forEach(CacheInvalidationTransport::stop);
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    public void publish(String channel) {
+        publish(List.of(channel));
+    }
+
+    /**
+     * Incrementa la versión de los canales. Dentro de una transacción, las filas quedan bloqueadas hasta
+     * confirmar, y por eso se actualizan en orden alfabético: conviene publicar todos los canales de una
+     * transacción en una sola llamada. Sin transacción, cada incremento se confirma de inmediato.
+     */
+    public void publish(Collection<String> channels) {
+        if (!enabled || channels.isEmpty()) {
+            return;
+        }
+        Map<String, Long> published = new LinkedHashMap<>();
+        for (String channel : new TreeSet<>(channels)) {
+            published.put(channel, increment(channel));
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markSeen(published);
+                }
+            });
+        } else {
+            markSeen(published);
+        }
+    }
+
+    /**
+     * Lee la tabla y notifica los canales que cambiaron desde la última lectura. La llama el sondeo
+     * periódico; es pública para forzar una revisión (p. ej. desde un transporte o en pruebas).
+     */
+    public void checkForChanges() {
+        Set<String> changed = new HashSet<>();
+        try {
+            jdbcTemplate.query("select name, version from cache_versions", rs -> {
+                String channel = rs.getString(1);
+                long version = rs.getLong(2);
+                Long known = knownVersions.get(channel);
+                if (known == null || version > known) {
+                    knownVersions.merge(channel, version, Math::max);
+                    changed.add(channel);
+                }
+            });
+        } catch (RuntimeException ex) {
+            // Se reintenta en el próximo sondeo; las cachés siguen caducando por su TTL
+            logger.warn("No se pudo leer cache_versions: {}", ex.getMessage());
+            return;
+        }
+
+        if (started && !changed.isEmpty()) {
+            remoteInvalidations.increment(changed.size());
+            eventPublisher.publishEvent(new CacheInvalidationEvent(Set.copyOf(changed)));
+        }
+    }
+
+    private void requestCheck() {
+        if (poller != null && !poller.isShutdown()) {
+            poller.execute(this::checkForChanges);
+        }
+    }
+
+    private long increment(String channel) {
+        String update = "update cache_versions set version = version + 1 where name = ?";
+        if (jdbcTemplate.update(update, channel) == 0) {
+            try {
+                jdbcTemplate.update("insert into cache_versions (name, version) values (?, 1)", channel);
+                return 1;
+            } catch (DuplicateKeyException ex) {
+                // Otro nodo creó el canal a la vez
+                jdbcTemplate.update(update, channel);
+            }
+        }
+        return jdbcTemplate.queryForObject("select version from cache_versions where name = ?", Long.class, channel);
+    }
+
+    // Solo avanza si no hay cambios de otros nodos pendientes de notificar entre medias
+    private void markSeen(Map<String, Long> published) {
+        published.forEach((channel, version) -> knownVersions.computeIfPresent(channel,
+                (c, known) -> known == version - 1 ? version : known));
+        published.forEach((channel, version) -> {
+            if (version == 1) {
+                knownVersions.putIfAbsent(channel, version);
+            }
+        });
+    }
+}
@@ -0,0 +1,10 @@
+package com.proteccion.crud.services;
+
+import java.util.Set;
+
+/**
+ * Se publica en un nodo cuando otro nodo ha modificado datos de los canales indicados
+ * (ver {@link CacheInvalidationBus}); cada caché vacía las entradas que dependen de ellos.
+ */
+public record CacheInvalidationEvent(Set<String> channels) {
+}
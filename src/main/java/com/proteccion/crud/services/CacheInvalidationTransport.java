@@ -0,0 +1,16 @@
+package com.proteccion.crud.services;
+
+/**
+ * Aviso opcional de cambios en cache_versions (p. ej. un mensaje de un broker o un trigger de la base de
+ * datos). Solo adelanta la siguiente consulta de {@link CacheInvalidationBus}, que sigue leyendo la tabla:
+ * un aviso perdido retrasa la invalidación como mucho un intervalo de sondeo, nunca la pierde.
+ */
+public interface CacheInvalidationTransport {
+
+    /**
+     * Empieza a escuchar; {@code onChange} pide al bus que revise la tabla y puede llamarse desde cualquier hilo.
+     */
+    void start(Runnable onChange);
+
+    void stop();
+}
@@ -0,0 +1,33 @@
+package com.proteccion.crud.services;
+
+import com.proteccion.crud.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor de paginación del feed de cambios sobre la clave (versión de cambio, id de la tarea):
+ * varias tareas comparten versión cuando se modifican en la misma transacción.
+ */
+record TaskChangeCursor(long version, long lastId) {
+
+    String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((version + ":" + lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Sin cursor se empieza justo después de la versión since
+    static TaskChangeCursor decode(String cursor, long since) {
+        if (cursor == null || cursor.isBlank()) {
+            return new TaskChangeCursor(since, Long.MAX_VALUE);
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = value.indexOf(':');
+            return new TaskChangeCursor(Long.parseLong(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new BadRequestException("Cursor de cambios inválido");
+        }
+    }
+}
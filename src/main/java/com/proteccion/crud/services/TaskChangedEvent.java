@@ -0,0 +1,19 @@
+package com.proteccion.crud.services;
+
+import java.util.Set;
+
+/**
+ * Se publica cuando cambian tareas, con los ids de los usuarios cuyos listados se ven afectados
+ * (creadores y asignados, antes y después del cambio). {@code userIds} nulo indica que el cambio
+ * puede afectar a cualquier usuario (p. ej. una transición de estado masiva).
+ */
+public record TaskChangedEvent(Set<Long> userIds) {
+
+    public static TaskChangedEvent allUsers() {
+        return new TaskChangedEvent(null);
+    }
+
+    public boolean affectsAllUsers() {
+        return userIds == null;
+    }
+}
@@ -0,0 +1,32 @@
+package com.proteccion.crud.services;
+
+import com.proteccion.crud.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor de paginación por clave (keyset) sobre el id de la tarea.
+ * Se serializa como una cadena opaca en Base64 URL-safe para que el cliente no dependa de su formato.
+ */
+record TaskCursor(long lastId) {
+
+    static final TaskCursor START = new TaskCursor(0L);
+
+    String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static TaskCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            return new TaskCursor(Long.parseLong(value));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Cursor de paginación inválido");
+        }
+    }
+}
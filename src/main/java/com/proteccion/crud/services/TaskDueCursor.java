@@ -0,0 +1,35 @@
+package com.proteccion.crud.services;
+
+import com.proteccion.crud.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Cursor de paginación de los listados por fecha de vencimiento sobre la clave (fecha de vencimiento,
+ * id de la tarea): varias tareas comparten fecha.
+ */
+record TaskDueCursor(LocalDate dueDate, long lastId) {
+
+    String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((dueDate + ":" + lastId).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // Sin cursor se empieza en la primera tarea que vence en dueFrom (los ids empiezan en 1)
+    static TaskDueCursor decode(String cursor, LocalDate dueFrom) {
+        if (cursor == null || cursor.isBlank()) {
+            return new TaskDueCursor(dueFrom, 0L);
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            int separator = value.indexOf(':');
+            return new TaskDueCursor(LocalDate.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeException ex) {
+            throw new BadRequestException("Cursor de paginación inválido");
+        }
+    }
+}
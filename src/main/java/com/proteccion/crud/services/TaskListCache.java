@@ -0,0 +1,181 @@
+package com.proteccion.crud.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.proteccion.crud.security.UserPrincipal;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria de las páginas de listado de tareas ya serializadas a JSON, por usuario
+ * (los administradores comparten entradas, porque ven las mismas tareas), estado, cursor y límite.
+ *
+ * <p>La invalidación no recorre la caché: cada clave incluye la generación del usuario y una
+ * generación global, y un cambio incrementa las generaciones afectadas. Las entradas antiguas dejan
+ * de ser alcanzables y se desalojan por tamaño o TTL. Como la generación se lee antes de cargar,
+ * una carga concurrente con un cambio queda guardada con la generación anterior y nunca se sirve.
+ *
+ * <p>Las generaciones de los usuarios también están en una caché acotada. Cada generación es un número
+ * nuevo de un contador común, nunca reutilizado: un usuario sin entrada (nuevo o desalojado) recibe una
+ * generación nueva, y así ninguna página guardada con una generación anterior vuelve a ser alcanzable.
+ *
+ * <p>Las cargas concurrentes de una misma clave se agrupan en una sola (ver {@link Cache#get}).
+ *
+ * <p>Los cambios se avisan también a los demás nodos por {@link CacheInvalidationBus}, en canales por
+ * grupo de usuarios ({@code task-lists:<id % grupos>}) para no mantener una fila por usuario. Un aviso
+ * remoto invalida todos los usuarios del grupo y los listados de los administradores.
+ */
+@Component
+public class TaskListCache {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.taskListCacheMaxBytes:67108864}")
+    private long maxBytes;
+
+    @Value("${app.taskListCacheTtlInMs:60000}")
+    private long ttlInMs;
+
+    @Value("${app.taskListCacheInvalidationBuckets:64}")
+    private int invalidationBuckets;
+
+    @Value("${app.taskListCacheMaxUsers:100000}")
+    private long maxUsers;
+
+    @Autowired
+    private CacheInvalidationBus invalidationBus;
+
+    static final String CHANNEL_PREFIX = "task-lists:";
+    static final String ALL_USERS_CHANNEL = CHANNEL_PREFIX + "all";
+
+    private Cache<Key, byte[]> cache;
+
+    private Cache<Long, Long> userGenerations;
+    private final AtomicLong nextUserGeneration = new AtomicLong();
+    private final AtomicLong adminGeneration = new AtomicLong();
+    private final AtomicLong globalGeneration = new AtomicLong();
+    // Generaciones por grupo de usuarios, que incrementan los avisos de otros nodos
+    private AtomicLongArray bucketGenerations;
+
+    private record Key(boolean admin, long userId, String filter, String cursor, int limit,
+                       long generation, long bucketGeneration, long globalGeneration) {
+    }
+
+    @PostConstruct
+    public void init() {
+        bucketGenerations = new AtomicLongArray(invalidationBuckets);
+        cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, byte[] value) -> value.length)
+                .expireAfterWrite(Duration.ofMillis(ttlInMs))
+                .recordStats()
+                .build();
+        // Una generación sin leer durante el TTL ya no tiene páginas en caché: desalojarla solo cuesta fallos
+        userGenerations = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterAccess(Duration.ofMillis(ttlInMs))
+                .build();
+
+        // cache.gets (aciertos y fallos), cache.evictions, cache.load y cache.load.duration
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "taskList");
+        Gauge.builder("task.list.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Proporción de listados de tareas servidos desde la caché")
+                .register(meterRegistry);
+        Gauge.builder("task.list.cache.users", userGenerations, Cache::estimatedSize)
+                .description("Usuarios con generación de listados en memoria")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Devuelve la página serializada del usuario, cargándola con {@code loader} si no está en caché.
+     *
+     * @param principal Usuario autenticado
+     * @param filter    Filtro del listado (estado, rango de vencimiento), o null para el listado completo
+     * @param cursor    Cursor de paginación recibido
+     * @param limit     Tamaño de página recibido
+     * @param loader    Construye la respuesta JSON; las excepciones se propagan y no se guarda nada
+     */
+    public byte[] get(UserPrincipal principal, String filter, String cursor, int limit, Supplier<byte[]> loader) {
+        boolean admin = principal.isAdmin();
+        long userId = admin ? 0L : principal.getId();
+        long generation = admin ? adminGeneration.get()
+                : userGenerations.get(userId, id -> nextUserGeneration.incrementAndGet());
+        long bucketGeneration = admin ? 0L : bucketGenerations.get(bucket(userId));
+        Key key = new Key(admin, userId, filter, cursor == null ? "" : cursor, limit,
+                generation, bucketGeneration, globalGeneration.get());
+        return cache.get(key, k -> loader.get());
+    }
+
+    /**
+     * Invalida los listados de los usuarios afectados y de los administradores una vez confirmada
+     * la transacción que modificó las tareas (o de inmediato si no había transacción).
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskChanged(TaskChangedEvent event) {
+        if (event.affectsAllUsers()) {
+            invalidateAll();
+            return;
+        }
+        for (Long userId : event.userIds()) {
+            userGenerations.put(userId, nextUserGeneration.incrementAndGet());
+        }
+        adminGeneration.incrementAndGet();
+    }
+
+    // Invalida todos los listados (cambios que no se pueden atribuir a usuarios concretos)
+    public void invalidateAll() {
+        globalGeneration.incrementAndGet();
+    }
+
+    // Avisa a los demás nodos en la misma transacción que modificó las tareas
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void publishToOtherNodes(TaskChangedEvent event) {
+        if (event.affectsAllUsers()) {
+            invalidationBus.publish(ALL_USERS_CHANNEL);
+            return;
+        }
+        Set<String> channels = new HashSet<>();
+        for (Long userId : event.userIds()) {
+            channels.add(CHANNEL_PREFIX + bucket(userId));
+        }
+        invalidationBus.publish(channels);
+    }
+
+    @EventListener
+    public void onRemoteInvalidation(CacheInvalidationEvent event) {
+        for (String channel : event.channels()) {
+            if (channel.equals(ALL_USERS_CHANNEL)) {
+                invalidateAll();
+            } else if (channel.startsWith(CHANNEL_PREFIX)) {
+                int bucket = Integer.parseInt(channel.substring(CHANNEL_PREFIX.length()));
+                if (bucket < invalidationBuckets) {
+                    bucketGenerations.incrementAndGet(bucket);
+                    adminGeneration.incrementAndGet();
+                } else {
+                    // Otro nodo con más grupos configurados
+                    invalidateAll();
+                }
+            }
+        }
+    }
+
+    private int bucket(long userId) {
+        return (int) Math.floorMod(userId, (long) invalidationBuckets);
+    }
+}
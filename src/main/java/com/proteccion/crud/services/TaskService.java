@@ -1,20 +1,68 @@
 package com.proteccion.crud.services;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.proteccion.crud.dto.TaskChangeDto;
 import com.proteccion.crud.dto.TaskDto;
+import com.proteccion.crud.exception.BadRequestException;
 import com.proteccion.crud.exception.ResourceNotFoundException;
 import com.proteccion.crud.models.Task;
+import com.proteccion.crud.models.TaskRevocation;
 import com.proteccion.crud.models.User;
+import com.proteccion.crud.payload.BatchItemResult;
+import com.proteccion.crud.payload.CursorPage;
+import com.proteccion.crud.payload.StatusTransitionRequest;
+import com.proteccion.crud.payload.TaskChangesPage;
 import com.proteccion.crud.repository.TaskRepository;
+import com.proteccion.crud.repository.TaskRevocationRepository;
 import com.proteccion.crud.repository.UserRepository;
+import com.proteccion.crud.security.UserPrincipal;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-
+import java.util.stream.Stream;
+
+// Cada método público publica el temporizador task.service (etiquetas class, method y exception)
+/**
+ * Operaciones sobre tareas. Por defecto cada método público es una transacción de solo lectura: Spring
+ * marca la sesión de Hibernate como read-only (sin snapshots para dirty checking) y con FlushMode.MANUAL.
+ * Los métodos que escriben declaran su propio {@code @Transactional} y son una única transacción cada uno.
+ */
 @Service
+@Timed(value = "task.service", description = "Tiempo de las operaciones de TaskService")
+@Transactional(readOnly = true)
 public class TaskService {
 
     @Autowired
@@ -23,55 +71,112 @@ public class TaskService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private TaskListCache taskListCache;
+
+    @Autowired
+    private TaskRevocationRepository revocationRepository;
+
+    @Autowired
+    private TaskVersionAllocator versionAllocator;
+
+    @Autowired
+    private TaskStreamDispatcher taskStream;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Las lecturas van en transacciones de solo lectura, que se enrutan a las réplicas si las hay
+    private TransactionTemplate readOnlyTransaction;
+
     private final String USER_NOT_FOUND = "Usuario no encontrado";
-    private final String ROLE_ADMIN = "ROLE_ADMIN";
 
-    public List<TaskDto> getAllTasks() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByUsername(auth.getName())
-                .orElseThrow(() -> new ResourceNotFoundException(USER_NOT_FOUND));
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private static final int EXPORT_CLEAR_INTERVAL = 1000;
+
+    private static final Comparator<TaskDto> BY_ID = Comparator.comparing(TaskDto::getId);
+    private static final Comparator<TaskChangeDto> BY_VERSION_AND_ID =
+            Comparator.comparingLong(TaskChangeDto::getVersion).thenComparing(TaskDto::getId);
+    private static final Comparator<TaskDto> BY_DUE_DATE_AND_ID =
+            Comparator.comparing(TaskDto::getDueDate).thenComparing(TaskDto::getId);
+    // Rango de fechas de vencimiento cuando no se indica dueFrom o dueTo (el del tipo DATE de MySQL)
+    private static final LocalDate MIN_DUE_DATE = LocalDate.of(1000, 1, 1);
+    private static final LocalDate MAX_DUE_DATE = LocalDate.of(9999, 12, 31);
+    private static final String CSV_HEADER = "id,title,description,dueDate,status,"
+            + "createdById,createdByUsername,assignedToId,assignedToUsername\n";
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    public enum ExportFormat {
+        NDJSON, CSV
+    }
+
+    public CursorPage<TaskDto> getAllTasks(String cursor, int limit) {
+        UserPrincipal principal = getCurrentPrincipal();
+        TaskCursor after = TaskCursor.decode(cursor);
+        Limit pageLimit = pageLimit(limit);
 
         // Si es admin, puede ver todas las tareas
-        if (auth.getAuthorities().stream().anyMatch(r -> r.getAuthority().equals(ROLE_ADMIN))) {
-            return taskRepository.findAll().stream()
-                    .map(this::convertToDto)
-                    .collect(Collectors.toList());
+        if (principal.isAdmin()) {
+            return toPage(taskRepository.findPage(after.lastId(), pageLimit), limit);
         }
 
         // Si es usuario normal, solo ve sus tareas asignadas o creadas por él
-        return taskRepository.findByAssignedToOrCreatedBy(currentUser, currentUser).stream()
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        return toPage(merge(
+                taskRepository.findAssignedPage(principal.getId(), after.lastId(), pageLimit),
+                taskRepository.findCreatedPage(principal.getId(), after.lastId(), pageLimit),
+                pageLimit.max(), BY_ID), limit);
     }
 
-    public TaskDto getTaskById(Long id) {
-        Task task = taskRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Tarea no encontrada con id: " + id));
-
-        // Verificar si el usuario tiene acceso a esta tarea
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByUsername(auth.getName())
-                .orElseThrow(() -> new ResourceNotFoundException(USER_NOT_FOUND));
+    // Igual que getAllTasks, pero devuelve la página ya serializada y la sirve desde la caché de listados.
+    // Solo la carga abre la transacción de lectura (y la conexión): un acierto no toca la base de datos
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public byte[] getAllTasksJson(String cursor, int limit) {
+        return taskListCache.get(getCurrentPrincipal(), null, cursor, limit,
+                () -> readOnlyTransaction.execute(tx -> toJson(getAllTasks(cursor, limit))));
+    }
 
-        boolean isAdmin = auth.getAuthorities().stream()
-                .anyMatch(r -> r.getAuthority().equals(ROLE_ADMIN));
-        boolean isCreator = task.getCreatedBy().getId().equals(currentUser.getId());
-        boolean isAssigned = task.getAssignedTo().getId().equals(currentUser.getId());
+    // Suscribe al usuario actual a los cambios de sus tareas (todas, si es admin); ver TaskStreamDispatcher
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SseEmitter streamTasks() {
+        return taskStream.subscribe(getCurrentPrincipal());
+    }
 
-        if (isAdmin || isCreator || isAssigned) {
-            return convertToDto(task);
-        } else {
-            throw new ResourceNotFoundException("No tienes acceso a esta tarea");
-        }
+    public TaskDto getTaskById(Long id) {
+        // Una tarea ajena se responde igual que una inexistente, sin llegar a leerla
+        UserPrincipal principal = getCurrentPrincipal();
+        Task task = taskRepository.findVisibleById(id, principal.getId(), principal.isAdmin())
+                .orElseThrow(() -> new ResourceNotFoundException("Tarea no encontrada con id: " + id));
+        return convertToDto(task);
     }
 
+    @Transactional
     public TaskDto createTask(TaskDto taskDto) {
         Task task = convertToEntity(taskDto);
+        versionAllocator.assignTo(task);
 
-        // Establecer el usuario actual como creador
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByUsername(auth.getName())
-                .orElseThrow(() -> new ResourceNotFoundException(USER_NOT_FOUND));
+        // Establecer el usuario actual como creador, sin consultarlo en la base de datos
+        User currentUser = userRepository.getReferenceById(getCurrentPrincipal().getId());
 
         task.setCreatedBy(currentUser);
 
@@ -86,27 +191,354 @@ public class TaskService {
         }
 
         Task savedTask = taskRepository.save(task);
+        Set<Long> affectedUsers = new HashSet<>();
+        addAffectedUsers(affectedUsers, savedTask);
+        publishTaskChanged(affectedUsers);
+        publishStreamEvent(TaskStreamEvent.Type.CREATED, savedTask, null);
         return convertToDto(savedTask);
     }
 
+    @Transactional
     public TaskDto updateTask(Long id, TaskDto taskDto) {
-        Task existingTask = taskRepository.findById(id)
+        // Solo se carga si el usuario tiene permiso para actualizarla
+        UserPrincipal principal = getCurrentPrincipal();
+        Task existingTask = taskRepository.findEditableById(id, principal.getId(), principal.isAdmin())
                 .orElseThrow(() -> new ResourceNotFoundException("Tarea no encontrada con id: " + id));
 
-        // Verificar si el usuario tiene permiso para actualizar
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByUsername(auth.getName())
-                .orElseThrow(() -> new ResourceNotFoundException(USER_NOT_FOUND));
+        boolean isAdmin = principal.isAdmin();
+        boolean isCreator = existingTask.getCreatedBy().getId().equals(principal.getId());
+
+        Set<Long> affectedUsers = new HashSet<>();
+        addAffectedUsers(affectedUsers, existingTask);
+        User previousAssignee = existingTask.getAssignedTo();
+        versionAllocator.assignTo(existingTask);
+        applyChanges(existingTask, taskDto);
+
+        // Solo admin o creador puede cambiar asignación
+        if (taskDto.getAssignedToId() != null && (isAdmin || isCreator)) {
+            User assignedUser = userRepository.findById(taskDto.getAssignedToId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Usuario asignado no encontrado"));
+            existingTask.setAssignedTo(assignedUser);
+        }
+
+        Task updatedTask = taskRepository.save(existingTask);
+        TaskRevocation revocation = revokeFromPreviousAssignee(updatedTask, previousAssignee);
+        if (revocation != null) {
+            saveRevocations(List.of(revocation));
+        }
+        addAffectedUsers(affectedUsers, updatedTask);
+        publishTaskChanged(affectedUsers);
+        publishStreamEvent(TaskStreamEvent.Type.UPDATED, updatedTask, previousAssignee);
+        return convertToDto(updatedTask);
+    }
+
+    // La tarea no se borra físicamente: queda como marca (tombstone) para el feed de cambios
+    @Transactional
+    public void deleteTask(Long id) {
+        // Solo se carga si el usuario tiene permiso para eliminarla
+        UserPrincipal principal = getCurrentPrincipal();
+        Task task = taskRepository.findDeletableById(id, principal.getId(), principal.isAdmin())
+                .orElseThrow(() -> new ResourceNotFoundException("Tarea no encontrada con id: " + id));
+
+        versionAllocator.assignTo(task);
+        task.setDeleted(true);
+        Set<Long> affectedUsers = new HashSet<>();
+        addAffectedUsers(affectedUsers, task);
+        publishTaskChanged(affectedUsers);
+        publishStreamEvent(TaskStreamEvent.Type.DELETED, task, null);
+    }
+
+    // Crea varias tareas en una transacción. Los usuarios asignados se validan con una sola consulta
+    // y las inserciones se envían en lotes JDBC (ver hibernate.jdbc.batch_size)
+    @Transactional
+    public List<BatchItemResult> createTasks(List<TaskDto> taskDtos) {
+        checkBatchSize(taskDtos);
+        Long currentUserId = getCurrentPrincipal().getId();
+        User currentUser = userRepository.getReferenceById(currentUserId);
+        Set<Long> existingAssignees = findExistingUserIds(taskDtos);
+
+        List<BatchItemResult> results = new ArrayList<>(taskDtos.size());
+        List<Task> tasks = new ArrayList<>(taskDtos.size());
+        List<Integer> taskIndexes = new ArrayList<>(taskDtos.size());
+        for (int index = 0; index < taskDtos.size(); index++) {
+            TaskDto taskDto = taskDtos.get(index);
+            String error = validateNewTask(taskDto, existingAssignees);
+            if (error != null) {
+                results.add(BatchItemResult.failed(index, null, error));
+                continue;
+            }
+
+            Task task = convertToEntity(taskDto);
+            versionAllocator.assignTo(task);
+            task.setCreatedBy(currentUser);
+            task.setAssignedTo(taskDto.getAssignedToId() != null
+                    ? userRepository.getReferenceById(taskDto.getAssignedToId())
+                    : currentUser);
+            tasks.add(task);
+            taskIndexes.add(index);
+            results.add(null);
+        }
+
+        List<Task> savedTasks = taskRepository.saveAll(tasks);
+        Set<Long> affectedUsers = new HashSet<>();
+        for (int i = 0; i < savedTasks.size(); i++) {
+            int index = taskIndexes.get(i);
+            results.set(index, BatchItemResult.ok(index, savedTasks.get(i).getId()));
+            addAffectedUsers(affectedUsers, savedTasks.get(i));
+            publishStreamEvent(TaskStreamEvent.Type.CREATED, savedTasks.get(i), null);
+        }
+        publishTaskChanged(affectedUsers);
+        return results;
+    }
+
+    // Actualiza varias tareas en una transacción: una consulta carga todas las tareas, otra valida
+    // los usuarios asignados y las actualizaciones se envían en lotes JDBC al confirmar
+    @Transactional
+    public List<BatchItemResult> updateTasks(List<TaskDto> taskDtos) {
+        checkBatchSize(taskDtos);
+        UserPrincipal principal = getCurrentPrincipal();
+        Map<Long, Task> tasksById = findTasksById(taskDtos.stream().map(TaskDto::getId).toList());
+        Set<Long> existingAssignees = findExistingUserIds(taskDtos);
+        Set<Long> affectedUsers = new HashSet<>();
+        List<TaskRevocation> revocations = new ArrayList<>();
+
+        List<BatchItemResult> results = new ArrayList<>(taskDtos.size());
+        for (int index = 0; index < taskDtos.size(); index++) {
+            TaskDto taskDto = taskDtos.get(index);
+            Task task = taskDto.getId() != null ? tasksById.get(taskDto.getId()) : null;
+            if (task == null) {
+                results.add(BatchItemResult.failed(index, taskDto.getId(), "Tarea no encontrada"));
+                continue;
+            }
+
+            boolean isCreator = task.getCreatedBy().getId().equals(principal.getId());
+            boolean isAssigned = task.getAssignedTo().getId().equals(principal.getId());
+            if (!(principal.isAdmin() || isCreator || isAssigned)) {
+                results.add(BatchItemResult.failed(index, task.getId(),
+                        "No tienes permiso para actualizar esta tarea"));
+                continue;
+            }
+            if (taskDto.getStatus() != null && !isValidStatus(taskDto.getStatus())) {
+                results.add(BatchItemResult.failed(index, task.getId(), "Estado no válido: " + taskDto.getStatus()));
+                continue;
+            }
+            if (taskDto.getAssignedToId() != null && !existingAssignees.contains(taskDto.getAssignedToId())) {
+                results.add(BatchItemResult.failed(index, task.getId(), "Usuario asignado no encontrado"));
+                continue;
+            }
+
+            addAffectedUsers(affectedUsers, task);
+            User previousAssignee = task.getAssignedTo();
+            versionAllocator.assignTo(task);
+            applyChanges(task, taskDto);
+
+            // Solo admin o creador puede cambiar asignación
+            if (taskDto.getAssignedToId() != null && (principal.isAdmin() || isCreator)) {
+                task.setAssignedTo(userRepository.getReferenceById(taskDto.getAssignedToId()));
+            }
+            TaskRevocation revocation = revokeFromPreviousAssignee(task, previousAssignee);
+            if (revocation != null) {
+                revocations.add(revocation);
+            }
+            addAffectedUsers(affectedUsers, task);
+            publishStreamEvent(TaskStreamEvent.Type.UPDATED, task, previousAssignee);
+            results.add(BatchItemResult.ok(index, task.getId()));
+        }
+        if (!revocations.isEmpty()) {
+            saveRevocations(revocations);
+        }
+        publishTaskChanged(affectedUsers);
+        return results;
+    }
+
+    // Elimina varias tareas con una consulta para cargarlas y una sola sentencia UPDATE que las marca
+    // como eliminadas (tombstones para el feed de cambios)
+    @Transactional
+    public List<BatchItemResult> deleteTasks(List<Long> ids) {
+        checkBatchSize(ids);
+        UserPrincipal principal = getCurrentPrincipal();
+        Map<Long, Task> tasksById = findTasksById(ids);
+
+        List<BatchItemResult> results = new ArrayList<>(ids.size());
+        List<Long> deletableIds = new ArrayList<>(ids.size());
+        for (int index = 0; index < ids.size(); index++) {
+            Long id = ids.get(index);
+            Task task = id != null ? tasksById.get(id) : null;
+            if (task == null) {
+                results.add(BatchItemResult.failed(index, id, "Tarea no encontrada"));
+            } else if (!(principal.isAdmin() || task.getCreatedBy().getId().equals(principal.getId()))) {
+                results.add(BatchItemResult.failed(index, id, "No tienes permiso para eliminar esta tarea"));
+            } else if (deletableIds.contains(id)) {
+                results.add(BatchItemResult.failed(index, id, "Tarea repetida en la solicitud"));
+            } else {
+                deletableIds.add(id);
+                results.add(BatchItemResult.ok(index, id));
+            }
+        }
+
+        if (!deletableIds.isEmpty()) {
+            Set<Long> affectedUsers = new HashSet<>();
+            deletableIds.forEach(id -> addAffectedUsers(affectedUsers, tasksById.get(id)));
+            long version = versionAllocator.nextVersion();
+            taskRepository.markDeleted(deletableIds, version);
+            publishTaskChanged(affectedUsers);
+            if (taskStream.hasSubscribers()) {
+                // La sentencia UPDATE no modifica las entidades cargadas: el tombstone se arma aquí
+                for (Long id : deletableIds) {
+                    TaskChangeDto change = convertToChangeDto(tasksById.get(id));
+                    change.setVersion(version);
+                    change.setDeleted(true);
+                    publishStreamEvent(TaskStreamEvent.Type.DELETED, change, null);
+                }
+            }
+        }
+        return results;
+    }
+
+    // Cambia el estado de todas las tareas que cumplen el filtro con una sola sentencia UPDATE,
+    // que incluye la regla de autorización (admin, creador o asignado)
+    @Transactional
+    public int transitionStatus(StatusTransitionRequest request) {
+        UserPrincipal principal = getCurrentPrincipal();
+
+        boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        if (!hasIds && request.getCurrentStatus() == null && request.getDueFrom() == null
+                && request.getDueTo() == null && request.getAssignedToId() == null) {
+            throw new BadRequestException("Debe indicar al menos un filtro");
+        }
+        if (hasIds && request.getIds().size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("Se admiten como máximo " + MAX_BATCH_SIZE + " ids");
+        }
+
+        long version = versionAllocator.nextVersion();
+        int updated = taskRepository.updateStatus(
+                parseStatus(request.getTargetStatus()),
+                request.getIds(),
+                request.getCurrentStatus() != null ? parseStatus(request.getCurrentStatus()) : null,
+                request.getDueFrom(),
+                request.getDueTo(),
+                request.getAssignedToId(),
+                principal.isAdmin() ? null : principal.getId(),
+                version);
+
+        // La sentencia no devuelve qué tareas cambió: se invalidan los listados de todos los usuarios
+        if (updated > 0) {
+            eventPublisher.publishEvent(TaskChangedEvent.allUsers());
+        }
+        // Para el stream se leen las tareas cambiadas por su versión (índice idx_tasks_change_version)
+        if (updated > 0 && taskStream.hasSubscribers()) {
+            taskRepository.findChanges(version - 1, Long.MAX_VALUE, version, updated).forEach(change ->
+                    publishStreamEvent(TaskStreamEvent.Type.UPDATED, change, null));
+        }
+        return updated;
+    }
+
+    // Usuarios cuyos listados incluyen la tarea: creador y asignado
+    private void addAffectedUsers(Set<Long> userIds, Task task) {
+        if (task.getCreatedBy() != null) {
+            userIds.add(task.getCreatedBy().getId());
+        }
+        if (task.getAssignedTo() != null) {
+            userIds.add(task.getAssignedTo().getId());
+        }
+    }
+
+    // Si la reasignación deja al asignado anterior sin acceso (no es el creador), su feed de cambios debe
+    // recibir un tombstone de la tarea: la consulta por asignado ya no la encuentra
+    private TaskRevocation revokeFromPreviousAssignee(Task task, User previousAssignee) {
+        Long previousId = previousAssignee.getId();
+        if (previousId.equals(task.getAssignedTo().getId()) || previousId.equals(task.getCreatedBy().getId())) {
+            return null;
+        }
+        TaskRevocation revocation = new TaskRevocation();
+        revocation.setTaskId(task.getId());
+        revocation.setUserId(previousId);
+        return revocation;
+    }
+
+    // Las revocaciones se insertan con la versión definitiva, al confirmar la transacción
+    private void saveRevocations(List<TaskRevocation> revocations) {
+        versionAllocator.whenAssigned(version -> {
+            revocations.forEach(revocation -> revocation.setChangeVersion(version));
+            revocationRepository.saveAll(revocations);
+        });
+    }
+
+    // Los listados en caché se invalidan al confirmar la transacción (ver TaskListCache)
+    private void publishTaskChanged(Set<Long> userIds) {
+        if (!userIds.isEmpty()) {
+            eventPublisher.publishEvent(new TaskChangedEvent(Set.copyOf(userIds)));
+        }
+    }
 
-        boolean isAdmin = auth.getAuthorities().stream()
-                .anyMatch(r -> r.getAuthority().equals(ROLE_ADMIN));
-        boolean isCreator = existingTask.getCreatedBy().getId().equals(currentUser.getId());
-        boolean isAssigned = existingTask.getAssignedTo().getId().equals(currentUser.getId());
+    // Publica el cambio para el stream SSE al confirmar la transacción, solo si hay clientes conectados
+    private void publishStreamEvent(TaskStreamEvent.Type type, Task task, User previousAssignee) {
+        if (!taskStream.hasSubscribers()) {
+            return;
+        }
+        Long previousAssignedToId = previousAssignee != null
+                && !previousAssignee.getId().equals(task.getAssignedTo().getId())
+                ? previousAssignee.getId()
+                : null;
+        publishStreamEvent(type, convertToChangeDto(task), previousAssignedToId);
+    }
+
+    // El cambio se construye con la versión provisional; la definitiva se asigna al confirmar
+    private void publishStreamEvent(TaskStreamEvent.Type type, TaskChangeDto change, Long previousAssignedToId) {
+        versionAllocator.whenAssigned(change::setVersion);
+        eventPublisher.publishEvent(new TaskStreamEvent(type, change, previousAssignedToId));
+    }
 
-        if (!(isAdmin || isCreator || isAssigned)) {
-            throw new ResourceNotFoundException("No tienes permiso para actualizar esta tarea");
+    private Task.TaskStatus parseStatus(String status) {
+        if (!isValidStatus(status)) {
+            throw new BadRequestException("Estado no válido: " + status);
         }
+        return Task.TaskStatus.valueOf(status);
+    }
 
+    private void checkBatchSize(List<?> items) {
+        if (items == null || items.isEmpty() || items.size() > MAX_BATCH_SIZE) {
+            throw new BadRequestException("El lote debe contener entre 1 y " + MAX_BATCH_SIZE + " elementos");
+        }
+    }
+
+    private Map<Long, Task> findTasksById(List<Long> ids) {
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        return taskRepository.findAllById(distinctIds).stream()
+                .collect(Collectors.toMap(Task::getId, Function.identity()));
+    }
+
+    private Set<Long> findExistingUserIds(List<TaskDto> taskDtos) {
+        Set<Long> assigneeIds = taskDtos.stream()
+                .map(TaskDto::getAssignedToId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        return assigneeIds.isEmpty() ? Set.of() : userRepository.findExistingIds(assigneeIds);
+    }
+
+    private String validateNewTask(TaskDto taskDto, Set<Long> existingAssignees) {
+        Set<ConstraintViolation<TaskDto>> violations = validator.validate(taskDto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        if (taskDto.getStatus() != null && !isValidStatus(taskDto.getStatus())) {
+            return "Estado no válido: " + taskDto.getStatus();
+        }
+        if (taskDto.getAssignedToId() != null && !existingAssignees.contains(taskDto.getAssignedToId())) {
+            return "Usuario asignado no encontrado";
+        }
+        return null;
+    }
+
+    private boolean isValidStatus(String status) {
+        return Arrays.stream(Task.TaskStatus.values()).anyMatch(s -> s.name().equals(status));
+    }
+
+    // Aplica a la tarea los campos informados en el DTO (actualización parcial)
+    private void applyChanges(Task existingTask, TaskDto taskDto) {
         if (taskDto.getTitle() != null) {
             existingTask.setTitle(taskDto.getTitle());
         }
@@ -122,62 +554,302 @@ public class TaskService {
         if (taskDto.getStatus() != null) {
             existingTask.setStatus(Task.TaskStatus.valueOf(taskDto.getStatus()));
         }
+    }
 
-        // Solo admin o creador puede cambiar asignación
-        if (taskDto.getAssignedToId() != null && (isAdmin || isCreator)) {
-            User assignedUser = userRepository.findById(taskDto.getAssignedToId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Usuario asignado no encontrado"));
-            existingTask.setAssignedTo(assignedUser);
+    // Igual que getTasksByStatus, pero devuelve la página ya serializada y la sirve desde la caché
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public byte[] getTasksByStatusJson(String status, String cursor, int limit) {
+        String taskStatus = Task.TaskStatus.valueOf(status).name();
+        return taskListCache.get(getCurrentPrincipal(), taskStatus, cursor, limit,
+                () -> readOnlyTransaction.execute(tx -> toJson(getTasksByStatus(status, cursor, limit))));
+    }
+
+    // Filtrar tareas por estado
+    public CursorPage<TaskDto> getTasksByStatus(String status, String cursor, int limit) {
+        UserPrincipal principal = getCurrentPrincipal();
+
+        Task.TaskStatus taskStatus = Task.TaskStatus.valueOf(status);
+        TaskCursor after = TaskCursor.decode(cursor);
+        Limit pageLimit = pageLimit(limit);
+
+        // Si es admin, puede ver todas las tareas con ese estado
+        if (principal.isAdmin()) {
+            return toPage(taskRepository.findPageByStatus(taskStatus, after.lastId(), pageLimit), limit);
         }
 
-        Task updatedTask = taskRepository.save(existingTask);
-        return convertToDto(updatedTask);
+        // Si es usuario normal, filtra entre sus tareas
+        return toPage(merge(
+                taskRepository.findAssignedPageByStatus(principal.getId(), taskStatus, after.lastId(), pageLimit),
+                taskRepository.findCreatedPageByStatus(principal.getId(), taskStatus, after.lastId(), pageLimit),
+                pageLimit.max(), BY_ID), limit);
     }
 
-    public void deleteTask(Long id) {
-        Task task = taskRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Tarea no encontrada con id: " + id));
+    // Igual que getTasksByDueDate, pero devuelve la página ya serializada y la sirve desde la caché.
+    // La clave incluye el rango efectivo, que con overdue cambia cada día
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public byte[] getTasksByDueDateJson(String status, LocalDate dueFrom, LocalDate dueTo, boolean overdue,
+                                        String cursor, int limit) {
+        DueDateFilter filter = dueDateFilter(status, dueFrom, dueTo, overdue);
+        return taskListCache.get(getCurrentPrincipal(), filter.cacheKey(), cursor, limit,
+                () -> readOnlyTransaction.execute(tx -> toJson(getTasksByDueDate(filter, cursor, limit))));
+    }
 
-        // Verificar si el usuario tiene permiso para eliminar
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByUsername(auth.getName())
-                .orElseThrow(() -> new ResourceNotFoundException(USER_NOT_FOUND));
+    /**
+     * Filtra las tareas visibles por fecha de vencimiento en [dueFrom, dueTo], ordenadas por fecha y id.
+     * Con {@code overdue} solo se devuelven las no completadas que vencieron antes de hoy. El estado es
+     * opcional y se combina con el rango.
+     */
+    public CursorPage<TaskDto> getTasksByDueDate(String status, LocalDate dueFrom, LocalDate dueTo, boolean overdue,
+                                                 String cursor, int limit) {
+        return getTasksByDueDate(dueDateFilter(status, dueFrom, dueTo, overdue), cursor, limit);
+    }
 
-        boolean isAdmin = auth.getAuthorities().stream()
-                .anyMatch(r -> r.getAuthority().equals(ROLE_ADMIN));
-        boolean isCreator = task.getCreatedBy().getId().equals(currentUser.getId());
+    private CursorPage<TaskDto> getTasksByDueDate(DueDateFilter filter, String cursor, int limit) {
+        UserPrincipal principal = getCurrentPrincipal();
+        Limit pageLimit = pageLimit(limit);
+        if (filter.isEmpty()) {
+            return new CursorPage<>(List.of(), null);
+        }
+
+        // Un cursor anterior al inicio del rango (el cliente cambió dueFrom) empieza de nuevo en dueFrom
+        TaskDueCursor after = TaskDueCursor.decode(cursor, filter.from());
+        if (after.dueDate().isBefore(filter.from())) {
+            after = new TaskDueCursor(filter.from(), 0L);
+        }
 
-        if (!(isAdmin || isCreator)) {
-            throw new ResourceNotFoundException("No tienes permiso para eliminar esta tarea");
+        // Si es admin, recorre el índice de fecha de vencimiento de toda la tabla (o el de estado y fecha)
+        if (principal.isAdmin()) {
+            return toDuePage(filter.allStatuses()
+                    ? taskRepository.findDuePage(filter.to(), after.dueDate(), after.lastId(), pageLimit)
+                    : taskRepository.findDuePageByStatus(filter.statuses(), filter.to(),
+                            after.dueDate(), after.lastId(), pageLimit), limit);
         }
 
-        taskRepository.delete(task);
+        // Si es usuario normal, combina el rango de sus tareas asignadas y el de las creadas por él
+        return toDuePage(merge(
+                taskRepository.findAssignedDuePage(principal.getId(), filter.statuses(), filter.to(),
+                        after.dueDate(), after.lastId(), pageLimit),
+                taskRepository.findCreatedDuePage(principal.getId(), filter.statuses(), filter.to(),
+                        after.dueDate(), after.lastId(), pageLimit),
+                pageLimit.max(), BY_DUE_DATE_AND_ID), limit);
     }
 
-    // Filtrar tareas por estado
-    public List<TaskDto> getTasksByStatus(String status) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByUsername(auth.getName())
-                .orElseThrow(() -> new ResourceNotFoundException(USER_NOT_FOUND));
+    // Rango y estados efectivos del listado por fecha de vencimiento
+    private record DueDateFilter(List<Task.TaskStatus> statuses, LocalDate from, LocalDate to) {
 
-        Task.TaskStatus taskStatus = Task.TaskStatus.valueOf(status);
+        boolean isEmpty() {
+            return statuses.isEmpty() || from.isAfter(to);
+        }
 
-        // Si es admin, puede ver todas las tareas con ese estado
-        if (auth.getAuthorities().stream().anyMatch(r -> r.getAuthority().equals(ROLE_ADMIN))) {
-            return taskRepository.findByStatus(taskStatus).stream()
-                    .map(this::convertToDto)
-                    .collect(Collectors.toList());
+        boolean allStatuses() {
+            return statuses.size() == Task.TaskStatus.values().length;
         }
 
-        // Si es usuario normal, filtra entre sus tareas
-        return taskRepository.findByAssignedToOrCreatedBy(currentUser, currentUser).stream()
-                .filter(task -> task.getStatus() == taskStatus)
-                .map(this::convertToDto)
-                .collect(Collectors.toList());
+        String cacheKey() {
+            return "due:" + statuses + ":" + from + ":" + to;
+        }
     }
 
-    // Método para convertir entidad a DTO
-    private TaskDto convertToDto(Task task) {
+    private DueDateFilter dueDateFilter(String status, LocalDate dueFrom, LocalDate dueTo, boolean overdue) {
+        if (dueFrom != null && dueTo != null && dueFrom.isAfter(dueTo)) {
+            throw new BadRequestException("dueFrom no puede ser posterior a dueTo");
+        }
+        LocalDate from = dueFrom != null ? dueFrom : MIN_DUE_DATE;
+        LocalDate to = dueTo != null ? dueTo : MAX_DUE_DATE;
+
+        List<Task.TaskStatus> statuses = status != null
+                ? List.of(parseStatus(status))
+                : List.of(Task.TaskStatus.values());
+        if (overdue) {
+            // Vencidas: antes de hoy y sin completar
+            LocalDate yesterday = LocalDate.now().minusDays(1);
+            to = to.isAfter(yesterday) ? yesterday : to;
+            statuses = statuses.stream().filter(s -> s != Task.TaskStatus.COMPLETED).toList();
+        }
+        return new DueDateFilter(statuses, from, to);
+    }
+
+    // Valida el tamaño de página y pide una fila extra para saber si existe una página siguiente
+    private Limit pageLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("El parámetro limit debe estar entre 1 y " + MAX_PAGE_SIZE);
+        }
+        return Limit.of(limit + 1);
+    }
+
+    // Combina dos listas ordenadas (tareas asignadas y creadas) sin duplicados,
+    // conservando como máximo max elementos
+    private <T extends TaskDto> List<T> merge(List<T> assigned, List<T> created, int max, Comparator<T> order) {
+        List<T> merged = new ArrayList<>(Math.min(max, assigned.size() + created.size()));
+        int i = 0;
+        int j = 0;
+        while (merged.size() < max && (i < assigned.size() || j < created.size())) {
+            if (j >= created.size()) {
+                merged.add(assigned.get(i++));
+            } else if (i >= assigned.size()) {
+                merged.add(created.get(j++));
+            } else {
+                int comparison = order.compare(assigned.get(i), created.get(j));
+                if (comparison == 0) {
+                    j++;
+                }
+                merged.add(comparison <= 0 ? assigned.get(i++) : created.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Devuelve los cambios de las tareas visibles para el usuario con versión posterior a {@code since},
+     * incluidas las eliminaciones y las tareas que dejó de ver por una reasignación, ordenados por versión.
+     * La versión devuelta en la última página es
+     * el {@code since} de la siguiente consulta.
+     */
+    public TaskChangesPage getChanges(long since, String cursor, int limit) {
+        if (since < 0) {
+            throw new BadRequestException("El parámetro since no puede ser negativo");
+        }
+        UserPrincipal principal = getCurrentPrincipal();
+        TaskChangeCursor after = TaskChangeCursor.decode(cursor, since);
+        int rows = pageLimit(limit).max();
+
+        // La versión se lee antes que los cambios: todo lo que tenga versión <= upTo ya está confirmado
+        long upTo = versionAllocator.currentVersion();
+
+        List<TaskChangeDto> changes = principal.isAdmin()
+                ? taskRepository.findChanges(after.version(), after.lastId(), upTo, rows)
+                : merge(merge(
+                        taskRepository.findAssignedChanges(principal.getId(), after.version(), after.lastId(), upTo, rows),
+                        taskRepository.findCreatedChanges(principal.getId(), after.version(), after.lastId(), upTo, rows),
+                        rows, BY_VERSION_AND_ID),
+                        // Tareas reasignadas a otro usuario: tombstones para quien dejó de verlas
+                        revocationRepository.findRevokedChanges(principal.getId(), after.version(), after.lastId(),
+                                upTo, rows),
+                        rows, BY_VERSION_AND_ID);
+
+        boolean hasNext = changes.size() > limit;
+        List<TaskChangeDto> items = hasNext ? new ArrayList<>(changes.subList(0, limit)) : changes;
+        String nextCursor = null;
+        if (hasNext) {
+            TaskChangeDto last = items.get(items.size() - 1);
+            nextCursor = new TaskChangeCursor(last.getVersion(), last.getId()).encode();
+        }
+        return new TaskChangesPage(items, nextCursor, upTo);
+    }
+
+    // Construye la página a partir de las filas leídas (como máximo limit + 1)
+    private CursorPage<TaskDto> toPage(List<TaskDto> tasks, int limit) {
+        boolean hasNext = tasks.size() > limit;
+        List<TaskDto> items = hasNext ? new ArrayList<>(tasks.subList(0, limit)) : tasks;
+
+        String nextCursor = hasNext
+                ? new TaskCursor(items.get(items.size() - 1).getId()).encode()
+                : null;
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    // Igual que toPage, con el cursor sobre (fecha de vencimiento, id)
+    private CursorPage<TaskDto> toDuePage(List<TaskDto> tasks, int limit) {
+        boolean hasNext = tasks.size() > limit;
+        List<TaskDto> items = hasNext ? new ArrayList<>(tasks.subList(0, limit)) : tasks;
+
+        String nextCursor = null;
+        if (hasNext) {
+            TaskDto last = items.get(items.size() - 1);
+            nextCursor = new TaskDueCursor(last.getDueDate(), last.getId()).encode();
+        }
+        return new CursorPage<>(items, nextCursor);
+    }
+
+    private byte[] toJson(CursorPage<TaskDto> page) {
+        try {
+            return objectMapper.writeValueAsBytes(page);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Exporta todas las tareas escribiéndolas fila a fila, con memoria constante sin importar
+    // el número de filas: se recorre un Stream con fetch size y se limpia el contexto de persistencia
+    public long exportTasks(OutputStream out, ExportFormat format) throws IOException {
+        ObjectWriter jsonWriter = objectMapper.writerFor(TaskDto.class);
+        long count = 0;
+
+        if (format == ExportFormat.CSV) {
+            out.write(CSV_HEADER.getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (Stream<Task> tasks = taskRepository.streamAll()) {
+            Iterator<Task> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                TaskDto dto = convertToDto(iterator.next());
+                if (format == ExportFormat.CSV) {
+                    out.write(toCsvLine(dto).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    out.write(jsonWriter.writeValueAsBytes(dto));
+                    out.write('\n');
+                }
+
+                if (++count % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        out.flush();
+        return count;
+    }
+
+    private String toCsvLine(TaskDto dto) {
+        return String.join(",",
+                csvValue(dto.getId()),
+                csvValue(dto.getTitle()),
+                csvValue(dto.getDescription()),
+                csvValue(dto.getDueDate()),
+                csvValue(dto.getStatus()),
+                csvValue(dto.getCreatedById()),
+                csvValue(dto.getCreatedByUsername()),
+                csvValue(dto.getAssignedToId()),
+                csvValue(dto.getAssignedToUsername())) + "\n";
+    }
+
+    private String csvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+
+    // Obtiene el principal autenticado, que ya contiene el id del usuario y si es administrador
+    private UserPrincipal getCurrentPrincipal() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth.getPrincipal() instanceof UserPrincipal principal && principal.getId() != null) {
+            return principal;
+        }
+
+        // Tokens emitidos antes de incluir el claim uid: se busca el usuario por username
+        User user = userRepository.findByUsername(auth.getName())
+                .orElseThrow(() -> new ResourceNotFoundException(USER_NOT_FOUND));
+        return UserPrincipal.create(user);
+    }
+
+    // Obtiene el username sin inicializar el proxy cuando se trata del usuario autenticado
+    private String getUsername(User user) {
+        if (!Hibernate.isInitialized(user)) {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null && auth.getPrincipal() instanceof UserPrincipal principal
+                    && user.getId().equals(principal.getId())) {
+                return principal.getUsername();
+            }
+        }
+        return user.getUsername();
+    }
+
+    // Método para convertir entidad a DTO (visible en el paquete para los benchmarks JMH)
+    TaskDto convertToDto(Task task) {
         TaskDto dto = new TaskDto();
         dto.setId(task.getId());
         dto.setTitle(task.getTitle());
@@ -187,19 +859,26 @@ public class TaskService {
 
         if (task.getCreatedBy() != null) {
             dto.setCreatedById(task.getCreatedBy().getId());
-            dto.setCreatedByUsername(task.getCreatedBy().getUsername());
+            dto.setCreatedByUsername(getUsername(task.getCreatedBy()));
         }
 
         if (task.getAssignedTo() != null) {
             dto.setAssignedToId(task.getAssignedTo().getId());
-            dto.setAssignedToUsername(task.getAssignedTo().getUsername());
+            dto.setAssignedToUsername(getUsername(task.getAssignedTo()));
         }
 
         return dto;
     }
 
-    // Método para convertir DTO a entidad
-    private Task convertToEntity(TaskDto dto) {
+    private TaskChangeDto convertToChangeDto(Task task) {
+        TaskDto dto = convertToDto(task);
+        return new TaskChangeDto(dto.getId(), dto.getTitle(), dto.getDescription(), dto.getDueDate(),
+                dto.getStatus(), dto.getCreatedById(), dto.getCreatedByUsername(), dto.getAssignedToId(),
+                dto.getAssignedToUsername(), task.getChangeVersion(), task.isDeleted());
+    }
+
+    // Método para convertir DTO a entidad (visible en el paquete para los benchmarks JMH)
+    Task convertToEntity(TaskDto dto) {
         Task task = new Task();
         task.setTitle(dto.getTitle());
         task.setDescription(dto.getDescription());
@@ -0,0 +1,389 @@
+package com.proteccion.crud.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proteccion.crud.dto.TaskChangeDto;
+import com.proteccion.crud.security.UserPrincipal;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reparte los cambios de tareas a los clientes suscritos al stream SSE.
+ *
+ * <p>Las conexiones abiertas no ocupan hilos: cada {@link SseEmitter} es una petición asíncrona del
+ * servlet, y un suscriptor es solo el emisor y una cola acotada de mensajes pendientes. Al confirmarse
+ * una transacción el evento se serializa una vez y se encola, sin bloquear, para cada destinatario;
+ * un grupo fijo de hilos vacía las colas que tienen mensajes. Si la cola de un suscriptor se llena
+ * (cliente lento o desconectado sin aviso) se cierra su conexión en lugar de frenar a los demás.
+ *
+ * <p>Cada envío bloquea su hilo hasta que el socket acepta los datos. Un envío que supera
+ * {@code app.taskStreamWriteTimeoutInMs} (cliente que no lee) desconecta al suscriptor, y el grupo
+ * recibe un hilo de reemplazo mientras el bloqueado espera al timeout de escritura del contenedor.
+ * Así un cliente atascado no deja sin hilos a los demás suscriptores.
+ */
+@Component
+public class TaskStreamDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(TaskStreamDispatcher.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.taskStreamQueueCapacity:256}")
+    private int queueCapacity;
+
+    @Value("${app.taskStreamThreads:4}")
+    private int threads;
+
+    @Value("${app.taskStreamTimeoutInMs:1800000}")
+    private long timeoutInMs;
+
+    @Value("${app.taskStreamWriteTimeoutInMs:10000}")
+    private long writeTimeoutInMs;
+
+    @Value("${app.taskStreamHeartbeatInMs:30000}")
+    private long heartbeatInMs;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    // Suscriptores por id de usuario; los administradores reciben los cambios de todas las tareas
+    private final Map<Long, Set<Subscriber>> subscribersByUser = new ConcurrentHashMap<>();
+    private final Set<Subscriber> adminSubscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    // Suscriptores con un envío en curso, que se vigilan contra el plazo de escritura
+    private final Set<Subscriber> sending = ConcurrentHashMap.newKeySet();
+
+    private ExecutorService senders;
+    // Grupo de hilos de plataforma, que crece por cada envío abandonado; nulo con hilos virtuales
+    private ThreadPoolExecutor senderPool;
+    private ScheduledExecutorService heartbeats;
+    private Counter dropped;
+
+    @PostConstruct
+    public void init() {
+        // Los envíos esperan a la red: con hilos virtuales cada vaciado de cola usa su propio hilo
+        if (virtualThreads) {
+            senders = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("task-stream-", 1).factory());
+        } else {
+            senderPool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(), daemonThreads("task-stream-"));
+            senders = senderPool;
+        }
+        heartbeats = Executors.newSingleThreadScheduledExecutor(daemonThreads("task-stream-heartbeat-"));
+        heartbeats.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatInMs, heartbeatInMs, TimeUnit.MILLISECONDS);
+        long watchdogInMs = Math.max(10, writeTimeoutInMs / 4);
+        heartbeats.scheduleWithFixedDelay(this::abandonStuckSends, watchdogInMs, watchdogInMs, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("task.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Conexiones abiertas al stream de cambios de tareas")
+                .register(meterRegistry);
+        dropped = Counter.builder("task.stream.dropped")
+                .description("Suscriptores desconectados por no consumir los eventos a tiempo (cola llena o "
+                        + "envío que supera el plazo de escritura)")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    /**
+     * Abre una suscripción para el usuario. La conexión se cierra al vencer el timeout
+     * ({@code app.taskStreamTimeoutInMs}); el cliente se vuelve a conectar y recupera lo perdido
+     * con GET /api/tasks/changes desde el id del último evento recibido (la versión del cambio).
+     */
+    public SseEmitter subscribe(UserPrincipal principal) {
+        SseEmitter emitter = new SseEmitter(timeoutInMs);
+        Subscriber subscriber = new Subscriber(emitter, principal.isAdmin() ? null : principal.getId());
+        Set<Subscriber> group = subscriber.userId == null
+                ? adminSubscribers
+                : subscribersByUser.computeIfAbsent(subscriber.userId, id -> ConcurrentHashMap.newKeySet());
+        group.add(subscriber);
+        subscriberCount.incrementAndGet();
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(ex -> remove(subscriber));
+        return emitter;
+    }
+
+    // Evita construir los eventos cuando nadie escucha
+    public boolean hasSubscribers() {
+        return subscriberCount.get() > 0;
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Encola el cambio para el creador, el asignado y los administradores, una vez confirmada la
+     * transacción que lo produjo. Si la reasignación deja al asignado anterior sin acceso, este recibe
+     * solo un evento deleted con el id y la versión, como el tombstone del feed de cambios.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTaskStreamEvent(TaskStreamEvent event) {
+        if (!hasSubscribers()) {
+            return;
+        }
+        TaskChangeDto task = event.task();
+        Message message = message(event.type(), task);
+        if (message == null) {
+            return;
+        }
+
+        Set<Long> userIds = new HashSet<>(2);
+        userIds.add(task.getCreatedById());
+        userIds.add(task.getAssignedToId());
+        userIds.forEach(userId -> enqueueTo(userId, message));
+        adminSubscribers.forEach(subscriber -> enqueue(subscriber, message));
+
+        Long revokedUserId = event.previousAssignedToId();
+        if (revokedUserId != null && !userIds.contains(revokedUserId) && subscribersByUser.containsKey(revokedUserId)) {
+            TaskChangeDto revocation = new TaskChangeDto();
+            revocation.setId(task.getId());
+            revocation.setVersion(task.getVersion());
+            revocation.setDeleted(true);
+            Message revoked = message(TaskStreamEvent.Type.DELETED, revocation);
+            if (revoked != null) {
+                enqueueTo(revokedUserId, revoked);
+            }
+        }
+    }
+
+    private Message message(TaskStreamEvent.Type type, TaskChangeDto task) {
+        try {
+            return new Message(String.valueOf(task.getVersion()), type.eventName(),
+                    objectMapper.writeValueAsString(task));
+        } catch (JsonProcessingException ex) {
+            logger.error("No se pudo serializar el evento de la tarea {}", task.getId(), ex);
+            return null;
+        }
+    }
+
+    private void enqueueTo(Long userId, Message message) {
+        Set<Subscriber> group = userId != null ? subscribersByUser.get(userId) : null;
+        if (group != null) {
+            group.forEach(subscriber -> enqueue(subscriber, message));
+        }
+    }
+
+    // Mantiene vivas las conexiones inactivas a través de proxies y detecta clientes desconectados
+    private void sendHeartbeats() {
+        Message heartbeat = Message.HEARTBEAT;
+        subscribersByUser.values().forEach(group -> group.forEach(subscriber -> enqueue(subscriber, heartbeat)));
+        adminSubscribers.forEach(subscriber -> enqueue(subscriber, heartbeat));
+    }
+
+    private void enqueue(Subscriber subscriber, Message message) {
+        if (subscriber.removed.get()) {
+            return;
+        }
+        if (!subscriber.offer(message, queueCapacity)) {
+            logger.debug("Suscriptor lento desconectado (usuario {})", subscriber.userId);
+            drop(subscriber);
+            return;
+        }
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    // Envía los mensajes pendientes del suscriptor; solo un hilo vacía una misma cola a la vez
+    private void drain(Subscriber subscriber) {
+        try {
+            Message message;
+            while (!subscriber.removed.get() && (message = subscriber.poll()) != null) {
+                send(subscriber, message);
+            }
+        } catch (Exception ex) {
+            // Conexión cerrada por el cliente o emisor ya completado
+            remove(subscriber);
+            subscriber.emitter.completeWithError(ex);
+            return;
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        if (subscriber.removed.get()) {
+            // Desconectado por llenar la cola o por superar el plazo de escritura
+            subscriber.emitter.complete();
+            return;
+        }
+        // Un mensaje encolado mientras se liberaba la marca no debe quedar esperando
+        if (!subscriber.isEmpty() && subscriber.scheduled.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void send(Subscriber subscriber, Message message) throws IOException {
+        subscriber.sendStartedAt = System.nanoTime();
+        sending.add(subscriber);
+        try {
+            if (message == Message.HEARTBEAT) {
+                subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } else {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(message.id())
+                        .name(message.name())
+                        .data(message.data(), MediaType.APPLICATION_JSON));
+            }
+        } finally {
+            sending.remove(subscriber);
+            synchronized (subscriber) {
+                if (subscriber.abandoned) {
+                    // El hilo vuelve al grupo: sobra el de reemplazo
+                    resizeSenders(-1);
+                }
+            }
+        }
+    }
+
+    // Desconecta a los suscriptores cuyo envío en curso supera el plazo de escritura. El envío no se
+    // puede cancelar: su hilo sigue bloqueado hasta el timeout de escritura del contenedor, así que se
+    // añade otro al grupo para que el resto de suscriptores siga recibiendo eventos
+    private void abandonStuckSends() {
+        long now = System.nanoTime();
+        long writeTimeoutInNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutInMs);
+        for (Subscriber subscriber : sending) {
+            synchronized (subscriber) {
+                if (subscriber.abandoned || !sending.contains(subscriber)
+                        || now - subscriber.sendStartedAt < writeTimeoutInNanos) {
+                    continue;
+                }
+                subscriber.abandoned = true;
+                resizeSenders(1);
+            }
+            logger.debug("Suscriptor que no lee desconectado (usuario {})", subscriber.userId);
+            drop(subscriber);
+        }
+    }
+
+    private synchronized void resizeSenders(int delta) {
+        if (senderPool == null) {
+            return;
+        }
+        // El máximo nunca puede quedar por debajo del tamaño base
+        if (delta > 0) {
+            senderPool.setMaximumPoolSize(senderPool.getMaximumPoolSize() + delta);
+            senderPool.setCorePoolSize(senderPool.getCorePoolSize() + delta);
+        } else {
+            senderPool.setCorePoolSize(senderPool.getCorePoolSize() + delta);
+            senderPool.setMaximumPoolSize(senderPool.getMaximumPoolSize() + delta);
+        }
+    }
+
+    // Cierra la conexión de un suscriptor que no consume a tiempo. Si hay un vaciado en curso, este
+    // completa el emisor al terminar su envío; si no, se programa uno que solo lo completa
+    private void drop(Subscriber subscriber) {
+        if (!remove(subscriber)) {
+            return;
+        }
+        dropped.increment();
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    // Devuelve false si el suscriptor ya se había quitado
+    private boolean remove(Subscriber subscriber) {
+        if (!subscriber.removed.compareAndSet(false, true)) {
+            return false;
+        }
+        if (subscriber.userId == null) {
+            adminSubscribers.remove(subscriber);
+        } else {
+            subscribersByUser.computeIfPresent(subscriber.userId, (id, group) -> {
+                group.remove(subscriber);
+                return group.isEmpty() ? null : group;
+            });
+        }
+        subscriberCount.decrementAndGet();
+        return true;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Message(String id, String name, String data) {
+        static final Message HEARTBEAT = new Message(null, null, null);
+    }
+
+    // Conexión abierta: el emisor y sus mensajes pendientes (la cola no reserva memoria mientras está vacía)
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Long userId;
+        private final Queue<Message> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean removed = new AtomicBoolean();
+        // Inicio del envío en curso (System.nanoTime) y si se abandonó por superar el plazo
+        private volatile long sendStartedAt;
+        private boolean abandoned;
+
+        private Subscriber(SseEmitter emitter, Long userId) {
+            this.emitter = emitter;
+            this.userId = userId;
+        }
+
+        private boolean offer(Message message, int capacity) {
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                return false;
+            }
+            pending.add(message);
+            return true;
+        }
+
+        private Message poll() {
+            Message message = pending.poll();
+            if (message != null) {
+                size.decrementAndGet();
+            }
+            return message;
+        }
+
+        private boolean isEmpty() {
+            return pending.isEmpty();
+        }
+    }
+}
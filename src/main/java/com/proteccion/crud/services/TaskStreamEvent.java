@@ -0,0 +1,20 @@
+package com.proteccion.crud.services;
+
+import com.proteccion.crud.dto.TaskChangeDto;
+
+/**
+ * Cambio de una tarea que se envía por el stream SSE una vez confirmada la transacción.
+ * {@code previousAssignedToId} es el asignado antes del cambio, que si deja de ver la tarea recibe
+ * solo un tombstone (evento deleted con el id y la versión); es nulo si no cambió.
+ */
+public record TaskStreamEvent(Type type, TaskChangeDto task, Long previousAssignedToId) {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED;
+
+        // Nombre del evento SSE (event: created, updated o deleted)
+        public String eventName() {
+            return name().toLowerCase();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.proteccion.crud.services;
+
+import com.proteccion.crud.models.Task;
+import com.proteccion.crud.models.TaskChangeVersion;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongConsumer;
+
+/**
+ * Asigna las versiones del feed de cambios de tareas: una por transacción, creciente y confirmada
+ * en orden (ver {@link TaskChangeVersion}).
+ * <p>
+ * Durante la transacción los cambios llevan una versión provisional negativa. La definitiva se toma del
+ * contador al confirmar, justo antes del COMMIT: la fila del contador queda bloqueada solo durante la
+ * confirmación, así que las transacciones que escriben tareas se ejecutan en paralelo y únicamente se
+ * ordenan sus confirmaciones. Como el contador se confirma junto con las filas, quien ve confirmada la
+ * versión N ve todas las anteriores y un cliente nunca se salta un cambio.
+ */
+@Component
+public class TaskVersionAllocator {
+
+    private static final Object TRANSACTION_VERSION_KEY = TaskVersionAllocator.class.getName() + ".version";
+
+    // Las filas se pasan a la versión definitiva por clave primaria, en bloques
+    private static final int UPDATE_CHUNK_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate newTransaction;
+
+    // Versión de una transacción: la provisional, si hay filas escritas con sentencias masivas y las
+    // acciones que esperan la definitiva
+    private static final class TransactionVersion {
+        private final long provisional;
+        private final List<LongConsumer> listeners = new ArrayList<>();
+        private boolean writtenBySql;
+
+        private TransactionVersion(long provisional) {
+            this.provisional = provisional;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Crea la fila del contador si no existe, en una transacción propia. SchemaMigrations la crea al
+     * arrancar, y la confirmación de versiones la crea si aún falta. Si otro nodo la crea a la vez, la clave
+     * duplicada se ignora. Empieza en la mayor versión ya escrita en tasks, para que las versiones no
+     * retrocedan si la fila se perdió.
+     */
+    public void createCounterIfMissing() {
+        try {
+            newTransaction.executeWithoutResult(status -> {
+                Integer existing = jdbcTemplate.queryForObject(
+                        "select count(*) from task_change_version where id = ?", Integer.class, TaskChangeVersion.ID);
+                if (existing == 0) {
+                    jdbcTemplate.update("insert into task_change_version (id, version) "
+                            + "select ?, coalesce(max(change_version), 0) from tasks where change_version > 0",
+                            TaskChangeVersion.ID);
+                }
+            });
+        } catch (DuplicateKeyException ex) {
+            // Otro nodo la creó entre la consulta y el INSERT
+        }
+    }
+
+    /**
+     * Marca la tarea con la versión de la transacción actual. La entidad lleva la provisional hasta que
+     * se asigna la definitiva, que se escribe con el flush del COMMIT.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void assignTo(Task task) {
+        TransactionVersion version = currentTransactionVersion();
+        task.setChangeVersion(version.provisional);
+        version.listeners.add(task::setChangeVersion);
+    }
+
+    /**
+     * Devuelve la versión provisional de la transacción actual para las sentencias UPDATE masivas, que
+     * no pasan por las entidades. Es un número negativo aleatorio, único en la práctica entre las
+     * transacciones en curso de todos los nodos; al confirmar, las filas de tareas que la llevan pasan a
+     * la definitiva.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public long nextVersion() {
+        TransactionVersion version = currentTransactionVersion();
+        version.writtenBySql = true;
+        return version.provisional;
+    }
+
+    /**
+     * Ejecuta {@code action} con la versión definitiva en cuanto se asigna, antes del COMMIT. Sirve para
+     * completar lo que se construyó con la versión provisional (por ejemplo, los eventos del stream SSE)
+     * o para escribir filas que solo se conocen con la definitiva.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void whenAssigned(LongConsumer action) {
+        currentTransactionVersion().listeners.add(action);
+    }
+
+    // Última versión confirmada: todas las versiones menores o iguales ya son visibles
+    @Transactional(readOnly = true)
+    public long currentVersion() {
+        return entityManager.createQuery("select v.version from TaskChangeVersion v where v.id = :id", Long.class)
+                .setParameter("id", TaskChangeVersion.ID)
+                .getSingleResult();
+    }
+
+    // Versión de la transacción actual; la primera llamada la crea y programa su asignación al confirmar
+    private TransactionVersion currentTransactionVersion() {
+        TransactionVersion version = (TransactionVersion) TransactionSynchronizationManager.getResource(
+                TRANSACTION_VERSION_KEY);
+        if (version != null) {
+            return version;
+        }
+
+        TransactionVersion created = new TransactionVersion(-ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE));
+        TransactionSynchronizationManager.bindResource(TRANSACTION_VERSION_KEY, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public int getOrder() {
+                return Ordered.LOWEST_PRECEDENCE;
+            }
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                assignVersion(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TRANSACTION_VERSION_KEY);
+            }
+        });
+        return created;
+    }
+
+    // Incrementa el contador, bloqueando su fila hasta el COMMIT. Las entidades reciben la versión
+    // definitiva en memoria y la escribe el flush del COMMIT; solo las filas de las sentencias masivas,
+    // que ya están en la base de datos, se actualizan aquí
+    private void assignVersion(TransactionVersion version) {
+        if (incrementCounter() == 0) {
+            createCounterIfMissing();
+            incrementCounter();
+        }
+        long assigned = ((Number) nativeQuery("select version from task_change_version where id = :id",
+                "task_change_version")
+                .setParameter("id", TaskChangeVersion.ID)
+                .getSingleResult()).longValue();
+
+        if (version.writtenBySql) {
+            // Se buscan primero los ids con una lectura sin bloqueos (índice idx_tasks_change_version) y se
+            // actualizan por clave primaria: así solo se bloquean filas que la transacción ya tiene bloqueadas
+            reassignTasks(version.provisional, assigned);
+        }
+        version.listeners.forEach(listener -> listener.accept(assigned));
+    }
+
+    private int incrementCounter() {
+        return nativeQuery("update task_change_version set version = version + 1 where id = :id", "task_change_version")
+                .setParameter("id", TaskChangeVersion.ID)
+                .executeUpdate();
+    }
+
+    private void reassignTasks(long provisional, long assigned) {
+        List<?> ids = nativeQuery("select id from tasks where change_version = :provisional", "tasks")
+                .setParameter("provisional", provisional)
+                .getResultList();
+        for (int from = 0; from < ids.size(); from += UPDATE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + UPDATE_CHUNK_SIZE)).stream()
+                    .map(id -> ((Number) id).longValue())
+                    .toList();
+            nativeQuery("update tasks set change_version = :version where id in (:ids)", "tasks")
+                    .setParameter("version", assigned)
+                    .setParameter("ids", chunk)
+                    .executeUpdate();
+        }
+    }
+
+    // Sentencia nativa que declara la tabla que usa: sin ella Hibernate vaciaría toda la caché de segundo
+    // nivel en las escrituras y haría flush de todas las entidades pendientes antes de cada consulta
+    private NativeQuery<?> nativeQuery(String sql, String table) {
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(table);
+    }
+}
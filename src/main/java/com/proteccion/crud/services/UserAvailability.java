@@ -0,0 +1,144 @@
+package com.proteccion.crud.services;
+
+import com.proteccion.crud.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Responde si un nombre de usuario o un email están libres. Los nombres y emails registrados se
+ * guardan en filtros de Bloom en memoria, construidos al arrancar recorriendo la tabla users y
+ * actualizados en cada registro: una respuesta "libre" no consulta la base de datos, y solo los
+ * posibles ocupados (incluidos los falsos positivos) se confirman con una consulta.
+ *
+ * <p>Los valores se comparan en minúsculas, como la colación por defecto de MySQL. Los usuarios
+ * eliminados siguen marcados hasta el próximo arranque, lo que solo produce consultas de más.
+ * Los registros hechos en otros nodos se agregan al recibir el aviso del canal de usuarios de
+ * {@link CacheInvalidationBus}, leyendo los usuarios con id mayor que el último cargado menos
+ * {@code app.userFilterReloadOverlap}: los ids se asignan al insertar pero se confirman en cualquier
+ * orden, y un registro lento con un id menor que otro ya leído quedaría fuera del filtro.
+ */
+@Component
+public class UserAvailability {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserAvailability.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.userFilterExpectedUsers:1000000}")
+    private long expectedUsers;
+
+    @Value("${app.userFilterFalsePositiveProbability:0.01}")
+    private double falsePositiveProbability;
+
+    // Debe cubrir los registros que pueden estar en curso a la vez en todos los nodos
+    @Value("${app.userFilterReloadOverlap:1000}")
+    private long reloadOverlap;
+
+    private volatile BloomFilter usernames;
+    private volatile BloomFilter emails;
+    // Hasta terminar la carga inicial todas las consultas van a la base de datos
+    private volatile boolean ready;
+    private final AtomicLong lastLoadedId = new AtomicLong();
+
+    private Counter filterAnswers;
+    private Counter databaseAnswers;
+
+    @PostConstruct
+    public void init() {
+        usernames = new BloomFilter(expectedUsers, falsePositiveProbability);
+        emails = new BloomFilter(expectedUsers, falsePositiveProbability);
+        filterAnswers = Counter.builder("user.availability.checks").tag("source", "filter")
+                .description("Comprobaciones de disponibilidad de usuario y email").register(meterRegistry);
+        databaseAnswers = Counter.builder("user.availability.checks").tag("source", "database")
+                .description("Comprobaciones de disponibilidad de usuario y email").register(meterRegistry);
+    }
+
+    /**
+     * Carga los nombres y emails existentes. El tamaño de los filtros se amplía si ya hay más usuarios
+     * que los esperados; los registros que ocurren durante la carga se agregan a los mismos filtros.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    // No es readOnly a propósito: la carga debe leer del primario, porque una réplica atrasada dejaría
+    // fuera registros recientes y el filtro respondería "disponible" para nombres ya tomados
+    @Transactional
+    public void load() {
+        long existing = userRepository.count();
+        if (existing * 2 > expectedUsers) {
+            usernames = new BloomFilter(existing * 2, falsePositiveProbability);
+            emails = new BloomFilter(existing * 2, falsePositiveProbability);
+        }
+        addUsersAfter(0L);
+        ready = true;
+        logger.info("Filtros de disponibilidad cargados con {} usuarios ({} bytes cada uno)",
+                existing, usernames.sizeInBytes());
+    }
+
+    // Usuarios registrados en otros nodos desde la última carga; como en load(), se leen del primario.
+    // Los que se vuelven a leer por el solapamiento ya están en los filtros y agregarlos no cambia nada
+    @EventListener
+    @Transactional
+    public void onRemoteInvalidation(CacheInvalidationEvent event) {
+        if (event.channels().contains(CacheInvalidationBus.USERS)) {
+            addUsersAfter(Math.max(0L, lastLoadedId.get() - reloadOverlap));
+        }
+    }
+
+    private void addUsersAfter(long afterId) {
+        try (Stream<Object[]> rows = userRepository.streamUsernamesAndEmails(afterId)) {
+            rows.forEach(row -> {
+                lastLoadedId.accumulateAndGet((Long) row[0], Math::max);
+                add((String) row[1], (String) row[2]);
+            });
+        }
+    }
+
+    public void add(String username, String email) {
+        if (username != null) {
+            usernames.put(normalize(username));
+        }
+        if (email != null) {
+            emails.put(normalize(email));
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isUsernameAvailable(String username) {
+        if (ready && !usernames.mightContain(normalize(username))) {
+            filterAnswers.increment();
+            return true;
+        }
+        databaseAnswers.increment();
+        return !userRepository.existsByUsername(username);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isEmailAvailable(String email) {
+        if (ready && !emails.mightContain(normalize(email))) {
+            filterAnswers.increment();
+            return true;
+        }
+        databaseAnswers.increment();
+        return !userRepository.existsByEmail(email);
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,58 @@
+package com.proteccion.crud.perf;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Carga masiva de usuarios y tareas directamente con SQL (INSERT ... SELECT sobre system_range de H2),
+ * sin pasar por JPA, para poder sembrar millones de filas en segundos.
+ */
+class BulkDataLoader {
+
+    static final String PASSWORD = "perf-password";
+
+    private static final int TASK_ID_ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    BulkDataLoader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Crea los roles, un administrador (id 0, "admin") y {@code users} usuarios normales con ids 1..users
+     * ("user1", "user2", ...), todos con la misma contraseña ya codificada.
+     */
+    void loadUsers(int users, String encodedPassword) {
+        jdbcTemplate.update("insert into roles (id, name) values (1, 'ROLE_USER'), (2, 'ROLE_ADMIN')");
+        jdbcTemplate.update("insert into users (id, username, email, password) values (0, 'admin', "
+                + "'admin@perf.local', ?)", encodedPassword);
+        jdbcTemplate.update("insert into users (id, username, email, password) "
+                + "select r.\"X\", concat('user', r.\"X\"), concat('user', r.\"X\", '@perf.local'), ? "
+                + "from system_range(1, ?) r", encodedPassword, users);
+        jdbcTemplate.update("insert into user_roles (user_id, role_id) values (0, 2)");
+        jdbcTemplate.update("insert into user_roles (user_id, role_id) "
+                + "select r.\"X\", 1 from system_range(1, ?) r", users);
+    }
+
+    /**
+     * Crea {@code tasks} tareas repartidas entre los usuarios: la tarea i la crea el usuario
+     * (i mod users) + 1 y se asigna al usuario (7i mod users) + 1. Reinicia la secuencia de tareas
+     * para que las tareas creadas después no colisionen con las sembradas.
+     */
+    void loadTasks(int users, int tasks) {
+        int batch = 500_000;
+        for (int from = 1; from <= tasks; from += batch) {
+            int to = Math.min(tasks, from + batch - 1);
+            jdbcTemplate.update("insert into tasks "
+                    + "(id, title, description, due_date, status, created_by, assigned_to, change_version, deleted) "
+                    + "select r.\"X\", concat('Tarea ', r.\"X\"), 'Tarea sembrada para la prueba de carga', "
+                    + "dateadd('DAY', mod(r.\"X\", 365) - 180, current_date), "
+                    + "case mod(r.\"X\", 3) when 0 then 'TODO' when 1 then 'IN_PROGRESS' else 'COMPLETED' end, "
+                    + "mod(r.\"X\", ?) + 1, mod(r.\"X\" * 7, ?) + 1, 0, false "
+                    + "from system_range(?, ?) r", users, users, from, to);
+        }
+        // El optimizador "pooled" de Hibernate usa el valor de la secuencia como extremo superior del bloque
+        jdbcTemplate.execute("alter sequence task_seq restart with " + (tasks + TASK_ID_ALLOCATION_SIZE + 1));
+        jdbcTemplate.execute("analyze");
+    }
+}
@@ -0,0 +1,58 @@
+package com.proteccion.crud.perf;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencias (en microsegundos) y errores de un endpoint durante la prueba de carga.
+ */
+class EndpointStats {
+
+    private final String name;
+    private final Histogram histogram = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final LongAdder errors = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    void record(long startNanos, boolean success) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        histogram.recordValue(Math.min(micros, histogram.getHighestTrackableValue()));
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    long getCount() {
+        return histogram.getTotalCount();
+    }
+
+    String summaryLine(double seconds) {
+        return String.format("%-36s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f",
+                name, histogram.getTotalCount(), errors.sum(), histogram.getTotalCount() / seconds,
+                millis(50), millis(95), millis(99), histogram.getMaxValue() / 1000.0);
+    }
+
+    static String summaryHeader() {
+        return String.format("%-36s %9s %7s %10s %9s %9s %9s %9s",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "max ms");
+    }
+
+    void writePercentileDistribution(PrintStream out) {
+        // Formato .hgrm de HdrHistogram, con los valores expresados en milisegundos
+        histogram.outputPercentileDistribution(out, 1000.0);
+    }
+
+    private double millis(double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
@@ -0,0 +1,320 @@
+package com.proteccion.crud.perf;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proteccion.crud.CrudApplication;
+import com.proteccion.crud.security.UserPrincipal;
+import com.proteccion.crud.services.TaskStreamDispatcher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Prueba de carga de extremo a extremo: arranca la aplicación sobre H2 (modo MySQL), siembra usuarios
+ * y tareas con {@link BulkDataLoader} y recorre /api/auth/signin y los endpoints de /api/tasks con
+ * clientes HTTP concurrentes. Informa rendimiento y percentiles p50/p95/p99 por endpoint.
+ *
+ * <p>Parámetros (propiedades del sistema, que {@code gradle perfTest} toma de -P):
+ * perf.users, perf.tasks, perf.concurrency, perf.warmupSeconds, perf.durationSeconds,
+ * perf.reportDir, perf.streamSubscribers (suscriptores SSE inactivos con los que se mide su memoria) y
+ * perf.springArgs (argumentos adicionales para la aplicación, separados por espacios).
+ */
+public class LoadTestRunner {
+
+    private final int users = Integer.getInteger("perf.users", 1_000);
+    private final int tasks = Integer.getInteger("perf.tasks", 100_000);
+    private final int concurrency = Integer.getInteger("perf.concurrency", 32);
+    private final int warmupSeconds = Integer.getInteger("perf.warmupSeconds", 10);
+    private final int durationSeconds = Integer.getInteger("perf.durationSeconds", 60);
+    private final Path reportDir = Path.of(System.getProperty("perf.reportDir", "build/reports/perf"));
+    private final String springArgs = System.getProperty("perf.springArgs", "");
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private ObjectMapper objectMapper;
+    private String baseUrl;
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestRunner().run();
+        System.exit(0);
+    }
+
+    private void run() throws Exception {
+        ConfigurableApplicationContext context = startApplication();
+        try {
+            objectMapper = context.getBean(ObjectMapper.class);
+            baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            long seedStart = System.nanoTime();
+            BulkDataLoader loader = new BulkDataLoader(context.getBean(JdbcTemplate.class));
+            loader.loadUsers(users, context.getBean(PasswordEncoder.class).encode(BulkDataLoader.PASSWORD));
+            loader.loadTasks(users, tasks);
+            System.out.printf("Sembrados %d usuarios y %d tareas en %.1f s%n",
+                    users, tasks, (System.nanoTime() - seedStart) / 1e9);
+
+            runPhase("calentamiento", warmupSeconds);
+            ResourceUsage usage = new ResourceUsage(context.getBean(MeterRegistry.class));
+            Map<String, EndpointStats> stats = runPhase("medición", durationSeconds);
+            usage.stop(stats.values().stream().mapToLong(EndpointStats::getCount).sum());
+            measureExport(stats);
+            String streamMemory = measureIdleStreamSubscribers(context.getBean(TaskStreamDispatcher.class));
+            writeReport(stats, usage, streamMemory);
+        } finally {
+            context.close();
+        }
+    }
+
+    private ConfigurableApplicationContext startApplication() {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:perf;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                // Se mide la aplicación, no el limitador: pocos usuarios generan todo el tráfico
+                "--app.rateLimit.enabled=false"));
+        if (!springArgs.isBlank()) {
+            args.addAll(Arrays.asList(springArgs.trim().split("\\s+")));
+        }
+        return SpringApplication.run(CrudApplication.class, args.toArray(String[]::new));
+    }
+
+    private Map<String, EndpointStats> runPhase(String name, int seconds) throws Exception {
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        for (String endpoint : List.of("POST /api/auth/signin", "GET /api/tasks", "GET /api/tasks?cursor",
+                "GET /api/tasks/{id}", "GET /api/tasks/status/{status}", "PUT /api/tasks/{id}",
+                "POST /api/tasks", "DELETE /api/tasks/{id}", "POST /api/tasks/batch",
+                "PATCH /api/tasks/batch", "DELETE /api/tasks/batch", "POST /api/tasks/status-transitions")) {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+
+        System.out.printf("Fase de %s: %d clientes durante %d s%n", name, concurrency, seconds);
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                int userId = (i % users) + 1;
+                workers.add(executor.submit(() -> {
+                    runClient(userId, stats, deadline);
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return stats;
+    }
+
+    // Un cliente repite una sesión típica: listar, paginar, leer, filtrar, actualizar, crear y borrar
+    private void runClient(int userId, Map<String, EndpointStats> stats, long deadline) throws Exception {
+        String token = signIn("user" + userId, stats);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int iteration = 1; System.nanoTime() < deadline; iteration++) {
+            if (iteration % 20 == 0) {
+                token = signIn("user" + userId, stats);
+            }
+
+            JsonNode page = call(stats, "GET /api/tasks", "GET", "/api/tasks?limit=50", null, token);
+            List<Long> ids = new ArrayList<>();
+            if (page != null) {
+                page.get("items").forEach(item -> ids.add(item.get("id").asLong()));
+                if (!page.get("nextCursor").isNull()) {
+                    call(stats, "GET /api/tasks?cursor", "GET",
+                            "/api/tasks?limit=50&cursor=" + page.get("nextCursor").asText(), null, token);
+                }
+            }
+
+            if (!ids.isEmpty()) {
+                long id = ids.get(random.nextInt(ids.size()));
+                call(stats, "GET /api/tasks/{id}", "GET", "/api/tasks/" + id, null, token);
+                call(stats, "PUT /api/tasks/{id}", "PUT", "/api/tasks/" + id, Map.of(
+                        "title", "Tarea actualizada " + iteration,
+                        "dueDate", LocalDate.now().plusDays(7).toString(),
+                        "status", "IN_PROGRESS"), token);
+            }
+
+            call(stats, "GET /api/tasks/status/{status}", "GET", "/api/tasks/status/TODO?limit=50", null, token);
+
+            JsonNode created = call(stats, "POST /api/tasks", "POST", "/api/tasks", Map.of(
+                    "title", "Tarea de carga " + iteration,
+                    "dueDate", LocalDate.now().plusDays(3).toString()), token);
+            if (created != null) {
+                call(stats, "DELETE /api/tasks/{id}", "DELETE", "/api/tasks/" + created.get("id").asLong(),
+                        null, token);
+            }
+
+            if (iteration % 10 == 0) {
+                runBulkOperations(stats, token, iteration);
+            }
+        }
+    }
+
+    private void runBulkOperations(Map<String, EndpointStats> stats, String token, int iteration)
+            throws Exception {
+        List<Map<String, Object>> newTasks = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            newTasks.add(Map.of("title", "Lote " + iteration + "-" + i,
+                    "dueDate", LocalDate.now().plusDays(i).toString()));
+        }
+        JsonNode results = call(stats, "POST /api/tasks/batch", "POST", "/api/tasks/batch", newTasks, token);
+        if (results == null) {
+            return;
+        }
+
+        List<Long> ids = new ArrayList<>();
+        results.forEach(result -> ids.add(result.get("id").asLong()));
+        call(stats, "PATCH /api/tasks/batch", "PATCH", "/api/tasks/batch",
+                ids.stream().map(id -> Map.of("id", id, "status", "IN_PROGRESS")).toList(), token);
+        call(stats, "POST /api/tasks/status-transitions", "POST", "/api/tasks/status-transitions",
+                Map.of("ids", ids, "currentStatus", "IN_PROGRESS", "targetStatus", "COMPLETED"), token);
+        call(stats, "DELETE /api/tasks/batch", "DELETE", "/api/tasks/batch", ids, token);
+    }
+
+    private String signIn(String username, Map<String, EndpointStats> stats) throws Exception {
+        JsonNode response = call(stats, "POST /api/auth/signin", "POST", "/api/auth/signin",
+                Map.of("usernameOrEmail", username, "password", BulkDataLoader.PASSWORD), null);
+        if (response == null) {
+            throw new IllegalStateException("No se pudo iniciar sesión como " + username);
+        }
+        return response.get("accessToken").asText();
+    }
+
+    private JsonNode call(Map<String, EndpointStats> stats, String endpoint, String method, String path,
+                          Object body, String token) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(60))
+                .method(method, body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        if (body != null) {
+            request.header("Content-Type", "application/json");
+        }
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException ex) {
+            stats.get(endpoint).record(start, false);
+            return null;
+        }
+        boolean success = response.statusCode() / 100 == 2;
+        stats.get(endpoint).record(start, success);
+        return success && response.body().length > 0 ? objectMapper.readTree(response.body()) : null;
+    }
+
+    // Una exportación completa por un administrador, leyendo todo el stream
+    private void measureExport(Map<String, EndpointStats> stats) throws Exception {
+        JsonNode signIn = call(stats, "POST /api/auth/signin", "POST", "/api/auth/signin",
+                Map.of("usernameOrEmail", "admin", "password", BulkDataLoader.PASSWORD), null);
+        EndpointStats export = new EndpointStats("GET /api/tasks/export");
+        stats.put(export.getName(), export);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/tasks/export"))
+                .header("Authorization", "Bearer " + signIn.get("accessToken").asText())
+                .build();
+        long start = System.nanoTime();
+        HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream in = response.body()) {
+            in.transferTo(java.io.OutputStream.nullOutputStream());
+        }
+        export.record(start, response.statusCode() == 200);
+    }
+
+    // Memoria por suscriptor inactivo del stream SSE (emisor, cola vacía y entrada en el índice por usuario,
+    // sin la conexión del contenedor). Es una estimación por diferencia de heap tras pedir GC: sirve para
+    // comparar entre versiones, no como umbral exacto
+    private String measureIdleStreamSubscribers(TaskStreamDispatcher dispatcher) {
+        int subscribers = Integer.getInteger("perf.streamSubscribers", 20_000);
+        long before = usedHeap();
+        List<SseEmitter> emitters = new ArrayList<>(subscribers);
+        for (int i = 0; i < subscribers; i++) {
+            emitters.add(dispatcher.subscribe(new UserPrincipal(1_000_000L + i, "u" + i, null,
+                    List.of(new SimpleGrantedAuthority("ROLE_USER")))));
+        }
+        long perSubscriber = (usedHeap() - before) / subscribers;
+        emitters.forEach(SseEmitter::complete);
+        return String.format("Stream SSE: ~%d bytes por suscriptor inactivo (%d suscriptores)",
+                perSubscriber, subscribers);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private void writeReport(Map<String, EndpointStats> stats, ResourceUsage usage, String streamMemory)
+            throws IOException {
+        Files.createDirectories(reportDir);
+        Path summary = reportDir.resolve("summary.txt");
+        try (PrintStream out = new PrintStream(Files.newOutputStream(summary), true, "UTF-8")) {
+            for (PrintStream target : List.of(System.out, out)) {
+                target.printf("Prueba de carga %s%n", LocalDateTime.now().withNano(0));
+                target.printf("usuarios=%d tareas=%d clientes=%d duración=%ds java=%s args=[%s]%n%n",
+                        users, tasks, concurrency, durationSeconds, System.getProperty("java.version"),
+                        springArgs);
+                target.println(EndpointStats.summaryHeader());
+                long total = 0;
+                for (EndpointStats endpoint : stats.values()) {
+                    target.println(endpoint.summaryLine(durationSeconds));
+                    total += endpoint.getCount();
+                }
+                target.printf("%nTotal: %d solicitudes, %.1f req/s%n", total, (double) total / durationSeconds);
+                target.println(usage.summary());
+                target.println(streamMemory);
+            }
+        }
+
+        for (EndpointStats endpoint : stats.values()) {
+            String fileName = endpoint.getName().replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm";
+            try (PrintStream out = new PrintStream(Files.newOutputStream(reportDir.resolve(fileName)))) {
+                endpoint.writePercentileDistribution(out);
+            }
+        }
+        System.out.println("Informe escrito en " + reportDir.toAbsolutePath());
+    }
+}
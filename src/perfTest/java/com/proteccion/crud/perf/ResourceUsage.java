@@ -0,0 +1,50 @@
+package com.proteccion.crud.perf;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uso de recursos durante la fase de medición: tiempo que se retiene cada conexión del pool
+ * (timer hikaricp.connections.usage de Hikari) y bytes de heap asignados por solicitud.
+ * Los bytes incluyen los de los clientes HTTP, que corren en la misma JVM; sirven para comparar
+ * configuraciones entre sí, no como valor absoluto del servidor.
+ */
+class ResourceUsage {
+
+    private final Timer connectionUsage;
+    private final long startCount;
+    private final double startTotalMs;
+    private final long startAllocated;
+
+    private long connections;
+    private double connectionMs;
+    private long allocatedPerRequest;
+
+    ResourceUsage(MeterRegistry meterRegistry) {
+        connectionUsage = meterRegistry.find("hikaricp.connections.usage").timer();
+        startCount = connectionUsage == null ? 0 : connectionUsage.count();
+        startTotalMs = connectionUsage == null ? 0 : connectionUsage.totalTime(TimeUnit.MILLISECONDS);
+        startAllocated = allocatedBytes();
+    }
+
+    void stop(long requests) {
+        if (connectionUsage != null) {
+            connections = connectionUsage.count() - startCount;
+            connectionMs = connectionUsage.totalTime(TimeUnit.MILLISECONDS) - startTotalMs;
+        }
+        allocatedPerRequest = requests == 0 ? 0 : (allocatedBytes() - startAllocated) / requests;
+    }
+
+    String summary() {
+        return String.format("Conexiones: %d préstamos, %.2f ms retenida de media%n"
+                        + "Heap asignado: %d KB por solicitud (servidor y clientes)",
+                connections, connections == 0 ? 0 : connectionMs / connections, allocatedPerRequest / 1024);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getTotalThreadAllocatedBytes();
+    }
+}
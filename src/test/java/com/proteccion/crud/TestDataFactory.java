@@ -0,0 +1,92 @@
+package com.proteccion.crud;
+
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.Task;
+import com.proteccion.crud.models.User;
+import com.proteccion.crud.security.JwtTokenProvider;
+import com.proteccion.crud.security.UserPrincipal;
+import com.proteccion.crud.services.TaskListCache;
+import com.proteccion.crud.services.UserAvailability;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+/**
+ * Crea usuarios, roles y tareas para las pruebas de integración y emite tokens para ellos.
+ */
+@TestComponent
+public class TestDataFactory {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private JwtTokenProvider tokenProvider;
+
+    // Los datos se escriben sin pasar por TaskService, así que los listados en caché se invalidan aquí
+    @Autowired
+    private TaskListCache taskListCache;
+
+    // Igual que el registro por la API, los usuarios creados aquí se agregan a los filtros de disponibilidad
+    @Autowired
+    private UserAvailability userAvailability;
+
+    @Transactional
+    public void deleteAll() {
+        // SQL nativo: la entidad Task excluye las tareas eliminadas (tombstones)
+        entityManager.createNativeQuery("delete from tasks").executeUpdate();
+        entityManager.createQuery("delete from TaskRevocation").executeUpdate();
+        entityManager.createNativeQuery("delete from user_roles").executeUpdate();
+        entityManager.createQuery("delete from User").executeUpdate();
+        entityManager.createQuery("delete from Role").executeUpdate();
+        taskListCache.invalidateAll();
+    }
+
+    @Transactional
+    public User createUser(String username, Role.RoleName roleName) {
+        Role role = entityManager.createQuery("select r from Role r where r.name = :name", Role.class)
+                .setParameter("name", roleName)
+                .getResultStream()
+                .findFirst()
+                .orElseGet(() -> {
+                    Role created = new Role();
+                    created.setName(roleName);
+                    entityManager.persist(created);
+                    return created;
+                });
+
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(username + "@proteccion.com");
+        user.setPassword("{noop}secreto");
+        user.getRoles().add(role);
+        entityManager.persist(user);
+        userAvailability.add(user.getUsername(), user.getEmail());
+        return user;
+    }
+
+    @Transactional
+    public Task createTask(String title, User createdBy, User assignedTo, Task.TaskStatus status,
+                           LocalDate dueDate) {
+        Task task = new Task();
+        task.setTitle(title);
+        task.setDueDate(dueDate);
+        task.setStatus(status);
+        task.setCreatedBy(entityManager.getReference(User.class, createdBy.getId()));
+        task.setAssignedTo(entityManager.getReference(User.class, assignedTo.getId()));
+        entityManager.persist(task);
+        taskListCache.invalidateAll();
+        return task;
+    }
+
+    public String bearerToken(User user) {
+        UserPrincipal principal = UserPrincipal.create(user);
+        return "Bearer " + tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
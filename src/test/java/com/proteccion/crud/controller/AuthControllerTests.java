@@ -0,0 +1,299 @@
+package com.proteccion.crud.controller;
+
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.User;
+import com.proteccion.crud.repository.UserRepository;
+import com.proteccion.crud.security.PasswordHashingExecutor;
+import com.proteccion.crud.security.UserDetailsServiceImpl;
+import com.proteccion.crud.services.CacheInvalidationBus;
+import com.proteccion.crud.services.CacheInvalidationEvent;
+import com.proteccion.crud.services.UserAvailability;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica el cálculo de contraseñas fuera de los hilos de Tomcat (actualización de hashes antiguos
+ * al iniciar sesión y rechazo con 503 con la cola llena), la consulta de disponibilidad y el registro.
+ */
+@SpringBootTest(properties = {
+        "app.passwordHashingThreads=1",
+        "app.passwordHashingQueueCapacity=1",
+        "app.passwordHashingRetryAfterSeconds=2"
+})
+@AutoConfigureMockMvc
+@Import(TestDataFactory.class)
+class AuthControllerTests {
+
+    private static final String SIGNIN = """
+            {"usernameOrEmail": "ana", "password": "secreto123"}
+            """;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @MockitoSpyBean
+    private UserAvailability userAvailability;
+
+    @MockitoSpyBean
+    private UserDetailsServiceImpl userDetailsService;
+
+    private User ana;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        ana = testData.createUser("ana", Role.RoleName.ROLE_USER);
+        // Hash guardado antes de usar prefijos de algoritmo, con otra fuerza
+        ana.setPassword(new BCryptPasswordEncoder(5).encode("secreto123"));
+        userRepository.save(ana);
+    }
+
+    @Test
+    void signinUpgradesLegacyHashes() throws Exception {
+        MvcResult signin = mockMvc.perform(post("/api/auth/signin")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(SIGNIN))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(signin))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accessToken").isNotEmpty());
+
+        String password = userRepository.findByUsername("ana").orElseThrow().getPassword();
+        assertThat(password).startsWith("{bcrypt}$2a$04$");
+        assertThat(passwordEncoder.matches("secreto123", password)).isTrue();
+    }
+
+    @Test
+    void signinOnlyVerifiesThePasswordOnTheHashingPool() throws Exception {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(userDetailsService).loadUserByUsername(anyString());
+        doAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(userDetailsService).updatePassword(any(), anyString());
+
+        MvcResult signin = mockMvc.perform(post("/api/auth/signin")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(SIGNIN))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(signin))
+                .andExpect(status().isOk());
+
+        // La consulta del usuario y la actualización del hash antiguo no ocupan el grupo de contraseñas
+        assertThat(threads).hasSize(2);
+        assertThat(threads).noneMatch(thread -> thread.startsWith("password-hashing-"));
+    }
+
+    @Test
+    void fullHashingQueueIsAServiceUnavailable() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Ocupa el único hilo y el único lugar de la cola
+        CompletableFuture<Boolean> running = passwordHashingExecutor.submit(() -> {
+            started.countDown();
+            return await(release);
+        });
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Boolean> queued = passwordHashingExecutor.submit(() -> true);
+        try {
+            MvcResult signin = mockMvc.perform(post("/api/auth/signin")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(SIGNIN))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(signin))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+        } finally {
+            release.countDown();
+        }
+        assertThat(running.get()).isTrue();
+        assertThat(queued.get()).isTrue();
+    }
+
+    @Test
+    void freeNamesAreAnsweredWithoutTheDatabase() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/auth/availability")
+                        .param("username", "libre")
+                        .param("email", "libre@proteccion.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usernameAvailable").value(true))
+                .andExpect(jsonPath("$.emailAvailable").value(true));
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        mockMvc.perform(get("/api/auth/availability").param("username", "ana"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usernameAvailable").value(false))
+                .andExpect(jsonPath("$.emailAvailable").doesNotExist());
+        mockMvc.perform(get("/api/auth/availability"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void remoteSignupsCommittedOutOfIdOrderReachTheFilter() throws Exception {
+        // Dos registros de otros nodos: el de id mayor se confirma y se lee antes que el de id menor
+        insertRemoteUser(ana.getId() + 10, "rapido");
+        eventPublisher.publishEvent(new CacheInvalidationEvent(Set.of(CacheInvalidationBus.USERS)));
+        insertRemoteUser(ana.getId() + 5, "lento");
+        eventPublisher.publishEvent(new CacheInvalidationEvent(Set.of(CacheInvalidationBus.USERS)));
+
+        mockMvc.perform(get("/api/auth/availability")
+                        .param("username", "lento")
+                        .param("email", "lento@proteccion.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.usernameAvailable").value(false))
+                .andExpect(jsonPath("$.emailAvailable").value(false));
+    }
+
+    @Test
+    void signupIsASingleInsertAndDuplicatesAreABadRequest() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        signup("nuevo", "nuevo@proteccion.com")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        mockMvc.perform(get("/api/auth/availability").param("username", "nuevo"))
+                .andExpect(jsonPath("$.usernameAvailable").value(false));
+
+        signup("nuevo", "otro@proteccion.com")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("¡El nombre de usuario ya está en uso!"));
+        signup("otro", "nuevo@proteccion.com")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("¡El email ya está en uso!"));
+    }
+
+    @Test
+    void duplicatesOnAnUnknownConstraintAreStillABadRequest() throws Exception {
+        // Una clave única con un nombre que el registro no reconoce, como las generadas por Hibernate
+        jdbcTemplate.execute("alter table users drop constraint " + User.EMAIL_CONSTRAINT);
+        jdbcTemplate.execute("alter table users add constraint UK_generado unique (email)");
+        try {
+            signup("otro", "ana@proteccion.com")
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message").value("¡El email ya está en uso!"));
+        } finally {
+            jdbcTemplate.execute("alter table users drop constraint UK_generado");
+            jdbcTemplate.execute("alter table users add constraint " + User.EMAIL_CONSTRAINT + " unique (email)");
+        }
+    }
+
+    @Test
+    void signupPersistsTheUserOutsideThePasswordHashingPool() throws Exception {
+        List<String> threads = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(userAvailability).add(anyString(), anyString());
+
+        // Con el único hilo ocupado, el hash termina después de que la petición encadena el resto del registro
+        CountDownLatch release = new CountDownLatch(1);
+        passwordHashingExecutor.submit(() -> await(release));
+        MvcResult signup;
+        try {
+            signup = startSignup("nuevo", "nuevo@proteccion.com");
+        } finally {
+            release.countDown();
+        }
+        mockMvc.perform(asyncDispatch(signup))
+                .andExpect(status().isOk());
+
+        // El INSERT y la publicación corren en el ejecutor de MVC: el grupo de contraseñas solo calcula el hash
+        assertThat(threads).hasSize(1);
+        assertThat(threads.get(0)).doesNotStartWith("password-hashing-");
+    }
+
+    private void insertRemoteUser(long id, String username) {
+        jdbcTemplate.update("insert into users (id, username, email, password) values (?, ?, ?, ?)",
+                id, username, username + "@proteccion.com", "{bcrypt}x");
+    }
+
+    private ResultActions signup(String username, String email) throws Exception {
+        return mockMvc.perform(asyncDispatch(startSignup(username, email)));
+    }
+
+    private MvcResult startSignup(String username, String email) throws Exception {
+        return mockMvc.perform(post("/api/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"name": "Nuevo", "username": "%s", "email": "%s", "password": "secreto123"}
+                                """.formatted(username, email)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+
+    private boolean await(CountDownLatch latch) {
+        try {
+            return latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
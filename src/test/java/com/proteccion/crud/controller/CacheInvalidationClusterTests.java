@@ -0,0 +1,136 @@
+package com.proteccion.crud.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proteccion.crud.CrudApplication;
+import com.proteccion.crud.repository.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Dos nodos de la aplicación en la misma JVM sobre una base H2 compartida: lo que se escribe en un nodo
+ * invalida, en un tiempo acotado, las cachés en memoria del otro (filtros de disponibilidad, caché de
+ * segundo nivel de usuarios y listados de tareas).
+ */
+class CacheInvalidationClusterTests {
+
+    private static final long POLL_INTERVAL_MS = 100;
+
+    private static final HttpClient httpClient = HttpClient.newHttpClient();
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes(@org.junit.jupiter.api.io.TempDir Path tempDir) throws Exception {
+        String database = "jdbc:h2:mem:cluster-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+        nodeA = startNode(database, "create", tempDir.resolve("node-a.conf"));
+        nodeB = startNode(database, "none", tempDir.resolve("node-b.conf"));
+    }
+
+    // Cada nodo tiene su propio CacheManager de JCache (uno por URI): así la caché de segundo nivel no se
+    // comparte entre nodos, como en producción, y cerrarlos no cierra la de los demás contextos de prueba
+    private static ConfigurableApplicationContext startNode(String database, String ddl, Path cacheConfig)
+            throws Exception {
+        try (InputStream in = new ClassPathResource("hibernate-cache.conf").getInputStream()) {
+            Files.copy(in, cacheConfig, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new SpringApplicationBuilder(CrudApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=" + database,
+                "--spring.jpa.hibernate.ddl-auto=" + ddl,
+                "--spring.jpa.properties.hibernate.javax.cache.uri=" + cacheConfig.toUri(),
+                "--app.cacheBus.pollIntervalInMs=" + POLL_INTERVAL_MS);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    void writesOnOneNodeInvalidateTheOtherNodesCaches() throws Exception {
+        UserRepository usersOnA = nodeA.getBean(UserRepository.class);
+
+        // El nodo A cachea que "nuevo" no existe: filtro de disponibilidad y caché de consultas
+        assertThat(json(send(nodeA, "GET", "/api/auth/availability?username=nuevo", null, null))
+                .get("usernameAvailable").asBoolean()).isTrue();
+        assertThat(usersOnA.findByUsername("nuevo")).isEmpty();
+
+        HttpResponse<String> signup = send(nodeB, "POST", "/api/auth/signup", """
+                {"name": "Nuevo", "username": "nuevo", "email": "nuevo@proteccion.com", "password": "secreto123"}
+                """, null);
+        assertThat(signup.statusCode()).isEqualTo(200);
+
+        long start = System.nanoTime();
+        awaitTrue(() -> !json(send(nodeA, "GET", "/api/auth/availability?username=nuevo", null, null))
+                .get("usernameAvailable").asBoolean());
+        awaitTrue(() -> usersOnA.findByUsername("nuevo").isPresent());
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+
+        String token = json(send(nodeA, "POST", "/api/auth/signin",
+                "{\"usernameOrEmail\": \"nuevo\", \"password\": \"secreto123\"}", null)).get("accessToken").asText();
+
+        // El listado vacío queda en la caché del nodo A; la tarea se crea en el nodo B
+        assertThat(send(nodeA, "GET", "/api/tasks", null, token).body()).doesNotContain("creada en B");
+        assertThat(send(nodeB, "POST", "/api/tasks", "{\"title\": \"creada en B\", \"dueDate\": \"2030-01-01\"}",
+                token).statusCode()).isEqualTo(201);
+
+        start = System.nanoTime();
+        awaitTrue(() -> send(nodeA, "GET", "/api/tasks", null, token).body().contains("creada en B"));
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+    }
+
+    private static HttpResponse<String> send(ConfigurableApplicationContext node, String method, String path,
+                                             String body, String token) throws Exception {
+        int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .method(method, body == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (body != null) {
+            request.header("Content-Type", "application/json");
+        }
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static JsonNode json(HttpResponse<String> response) throws Exception {
+        return objectMapper.readTree(response.body());
+    }
+
+    private static void awaitTrue(Callable<Boolean> condition) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.call()) {
+            assertThat(System.nanoTime()).as("tiempo de espera agotado").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+}
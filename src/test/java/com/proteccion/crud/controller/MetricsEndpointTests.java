@@ -0,0 +1,86 @@
+package com.proteccion.crud.controller;
+
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que /actuator/prometheus publica las métricas de TaskService, de la validación JWT
+ * (separadas por tipo de fallo), del filtro de autenticación, de la caché de listados y de Hibernate,
+ * y que por el puerto de la API solo lo consulta un administrador.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@Import(TestDataFactory.class)
+class MetricsEndpointTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    private User ana;
+    private User admin;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        ana = testData.createUser("ana", Role.RoleName.ROLE_USER);
+        admin = testData.createUser("admin", Role.RoleName.ROLE_ADMIN);
+    }
+
+    @Test
+    void prometheusEndpointRequiresAnAdministratorOnTheApiPort() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").header("Authorization", testData.bearerToken(ana)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/health")).andExpect(status().isOk());
+    }
+
+    @Test
+    void prometheusEndpointExposesApplicationMetrics() throws Exception {
+        String token = testData.bearerToken(ana);
+        String tampered = token.substring(0, token.lastIndexOf('.') + 1)
+                + (token.charAt(token.lastIndexOf('.') + 1) == 'A' ? 'B' : 'A')
+                + token.substring(token.lastIndexOf('.') + 2);
+
+        mockMvc.perform(get("/api/tasks").header("Authorization", token)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/tasks").header("Authorization", tampered)).andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/tasks").header("Authorization", "Bearer no-es-un-jwt"))
+                .andExpect(status().isUnauthorized());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus").header("Authorization", testData.bearerToken(admin)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(scrape)
+                .contains("task_service_seconds_count{")
+                .contains("method=\"getAllTasksJson\"")
+                .contains("jwt_validation_seconds_count{")
+                .contains("outcome=\"signature\"")
+                .contains("outcome=\"malformed\"")
+                .contains("outcome=\"expired\"")
+                .contains("jwt_filter_seconds_count{")
+                .contains("outcome=\"rejected\"")
+                .contains("jwt_cache_hits_total")
+                .contains("cache_gets_total{cache=\"taskList\"")
+                .contains("task_list_cache_hit_ratio")
+                .contains("hibernate_query_executions_total")
+                .contains("hibernate_entities_loads_total")
+                .contains("hibernate_cache_query_requests_total");
+    }
+}
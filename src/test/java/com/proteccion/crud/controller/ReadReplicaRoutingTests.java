@@ -0,0 +1,113 @@
+package com.proteccion.crud.controller;
+
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.config.ReplicaRoutingDataSource;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.User;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica el enrutamiento de lecturas a una réplica con dos bases H2 en memoria: la "réplica" es una
+ * copia del primario a la que luego se agrega una tarea que el primario no tiene, lo que permite saber
+ * desde qué base se respondió cada lectura.
+ */
+@SpringBootTest(properties = {
+        "app.datasource.replicas=jdbc:h2:mem:replica-${random.uuid};MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "app.datasource.replicaHealthCheckInMs=100",
+        "app.datasource.readYourWritesWindowInMs=60000"
+})
+@AutoConfigureMockMvc
+@Import(TestDataFactory.class)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReadReplicaRoutingTests {
+
+    private static final String REPLICA_ONLY = "solo en la réplica";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Autowired
+    private HikariDataSource primaryPool;
+
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private JdbcTemplate replica;
+    private User ana;
+    private User luis;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        ana = testData.createUser("ana", Role.RoleName.ROLE_USER);
+        luis = testData.createUser("luis", Role.RoleName.ROLE_USER);
+
+        // "Replicación": copia del esquema y los datos del primario, y una tarea que solo existe en la réplica
+        String replicaUrl = ((HikariDataSource) routingDataSource.getResolvedDataSources().get("replica-0")).getJdbcUrl();
+        replica = new JdbcTemplate(new DriverManagerDataSource(replicaUrl + ";IFEXISTS=TRUE", "sa", ""));
+        List<String> script = new JdbcTemplate(primaryPool).queryForList("script", String.class);
+        replica.execute("drop all objects");
+        script.forEach(replica::execute);
+        for (User user : List.of(ana, luis)) {
+            replica.update("insert into tasks (id, title, due_date, status, created_by, assigned_to, change_version, "
+                    + "deleted) values (?, ?, date '2030-01-01', 'TODO', ?, ?, 0, false)",
+                    900_000 + user.getId(), REPLICA_ONLY, user.getId(), user.getId());
+        }
+    }
+
+    @Test
+    @Order(1)
+    void readsGoToTheReplicaExceptRightAfterTheUsersOwnWrite() throws Exception {
+        assertThat(tasks(ana)).contains(REPLICA_ONLY);
+
+        mockMvc.perform(post("/api/tasks")
+                        .header("Authorization", testData.bearerToken(ana))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"nueva\", \"dueDate\": \"2030-01-01\"}"))
+                .andExpect(status().isCreated());
+
+        // ana lee lo que acaba de escribir desde el primario; luis sigue leyendo de la réplica
+        assertThat(tasks(ana)).contains("nueva").doesNotContain(REPLICA_ONLY);
+        assertThat(tasks(luis)).contains(REPLICA_ONLY);
+    }
+
+    @Test
+    // Último de la clase: deja la réplica apagada. No se usa @DirtiesContext porque cerrar el contexto
+    // cierra el CacheManager de JCache, que comparten todos los contextos de prueba de la JVM
+    @Order(2)
+    void readsFallBackToThePrimaryWhenTheReplicaIsDown() throws Exception {
+        replica.execute("shutdown");
+        Thread.sleep(500);
+
+        assertThat(tasks(luis)).doesNotContain(REPLICA_ONLY);
+    }
+
+    private String tasks(User user) throws Exception {
+        return mockMvc.perform(get("/api/tasks").header("Authorization", testData.bearerToken(user)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,129 @@
+package com.proteccion.crud.controller;
+
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.Task;
+import com.proteccion.crud.models.User;
+import com.proteccion.crud.repository.TaskRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Autorización en la consulta: cada operación sobre una tarea la carga en una sola sentencia que ya
+ * filtra por permisos (los usuarios salen de la caché de segundo nivel), y una tarea ajena no llega a leerse.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestDataFactory.class)
+class TaskAccessTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User ana;
+    private User luis;
+    private User eva;
+    private User admin;
+    private Task task;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        ana = testData.createUser("ana", Role.RoleName.ROLE_USER);
+        luis = testData.createUser("luis", Role.RoleName.ROLE_USER);
+        eva = testData.createUser("eva", Role.RoleName.ROLE_USER);
+        admin = testData.createUser("admin", Role.RoleName.ROLE_ADMIN);
+        // Creada por ana y asignada a luis
+        task = testData.createTask("compartida", ana, luis, Task.TaskStatus.TODO, LocalDate.of(2030, 1, 1));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void readingATaskIsOneStatementOnceUsersAreCached() throws Exception {
+        mockMvc.perform(get("/api/tasks/" + task.getId()).header("Authorization", testData.bearerToken(luis)))
+                .andExpect(status().isOk());
+        statistics.clear();
+
+        mockMvc.perform(get("/api/tasks/" + task.getId()).header("Authorization", testData.bearerToken(luis)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.createdByUsername").value("ana"))
+                .andExpect(jsonPath("$.assignedToUsername").value("luis"));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void anotherUsersTaskIsNotFoundAndNeverLoaded() throws Exception {
+        mockMvc.perform(get("/api/tasks/" + task.getId()).header("Authorization", testData.bearerToken(eva)))
+                .andExpect(status().isNotFound());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    void adminsBypassTheOwnershipFilter() throws Exception {
+        mockMvc.perform(get("/api/tasks/" + task.getId()).header("Authorization", testData.bearerToken(admin)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void theAssigneeCanUpdateButNotReassignOrDelete() throws Exception {
+        mockMvc.perform(put("/api/tasks/" + task.getId())
+                        .header("Authorization", testData.bearerToken(luis))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"editada\", \"dueDate\": \"2030-02-01\", \"status\": \"IN_PROGRESS\", "
+                                + "\"assignedToId\": " + eva.getId() + "}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("editada"))
+                .andExpect(jsonPath("$.assignedToId").value(luis.getId()));
+
+        mockMvc.perform(delete("/api/tasks/" + task.getId()).header("Authorization", testData.bearerToken(luis)))
+                .andExpect(status().isNotFound());
+        assertThat(taskRepository.findById(task.getId())).isPresent();
+
+        mockMvc.perform(delete("/api/tasks/" + task.getId()).header("Authorization", testData.bearerToken(ana)))
+                .andExpect(status().isNoContent());
+        assertThat(taskRepository.findById(task.getId())).isEmpty();
+    }
+
+    @Test
+    void strangersCannotUpdate() throws Exception {
+        mockMvc.perform(put("/api/tasks/" + task.getId())
+                        .header("Authorization", testData.bearerToken(eva))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"ajena\", \"dueDate\": \"2030-02-01\"}"))
+                .andExpect(status().isNotFound());
+
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+}
@@ -0,0 +1,183 @@
+package com.proteccion.crud.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.Task;
+import com.proteccion.crud.models.User;
+import com.proteccion.crud.repository.TaskRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestDataFactory.class)
+class TaskBatchTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User ana;
+    private User luis;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        ana = testData.createUser("ana", Role.RoleName.ROLE_USER);
+        luis = testData.createUser("luis", Role.RoleName.ROLE_USER);
+    }
+
+    @Test
+    void createBatchReportsEachItemAndInsertsInJdbcBatches() throws Exception {
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            items.add(Map.of("title", "importada-" + i, "dueDate", "2030-01-01", "assignedToId", luis.getId()));
+        }
+        items.add(Map.of("dueDate", "2030-01-01"));
+        items.add(Map.of("title", "sin asignado", "dueDate", "2030-01-01", "assignedToId", -1));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        JsonNode results = perform(post("/api/tasks/batch"), items, ana);
+
+        assertThat(results).hasSize(42);
+        assertThat(results.get(0).get("success").asBoolean()).isTrue();
+        assertThat(results.get(0).get("id").asLong()).isPositive();
+        assertThat(results.get(40).get("success").asBoolean()).isFalse();
+        assertThat(results.get(40).get("message").asText()).isEqualTo("El título es obligatorio");
+        assertThat(results.get(41).get("message").asText()).isEqualTo("Usuario asignado no encontrado");
+        assertThat(taskRepository.count()).isEqualTo(40);
+
+        // Una consulta de usuarios, los valores de la secuencia y los INSERT en lotes de 50:
+        // muy por debajo de una sentencia por tarea
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(10);
+    }
+
+    @Test
+    void updateAndDeleteBatchesApplyPermissionsPerItem() throws Exception {
+        Task own = testData.createTask("propia", ana, ana, Task.TaskStatus.TODO, LocalDate.of(2030, 1, 1));
+        Task assigned = testData.createTask("asignada", luis, ana, Task.TaskStatus.TODO, LocalDate.of(2030, 1, 1));
+        Task foreign = testData.createTask("ajena", luis, luis, Task.TaskStatus.TODO, LocalDate.of(2030, 1, 1));
+
+        JsonNode updates = perform(patch("/api/tasks/batch"), List.of(
+                Map.of("id", own.getId(), "status", "COMPLETED"),
+                Map.of("id", assigned.getId(), "status", "IN_PROGRESS"),
+                Map.of("id", foreign.getId(), "status", "COMPLETED"),
+                Map.of("id", own.getId(), "status", "BLOQUEADA")), ana);
+
+        assertThat(updates).extracting(node -> node.get("success").asBoolean())
+                .containsExactly(true, true, false, false);
+        assertThat(taskRepository.findById(own.getId()).orElseThrow().getStatus())
+                .isEqualTo(Task.TaskStatus.COMPLETED);
+        assertThat(taskRepository.findById(foreign.getId()).orElseThrow().getStatus())
+                .isEqualTo(Task.TaskStatus.TODO);
+
+        JsonNode deletes = perform(delete("/api/tasks/batch"),
+                List.of(own.getId(), assigned.getId(), foreign.getId(), 999_999L), ana);
+
+        assertThat(deletes).extracting(node -> node.get("success").asBoolean())
+                .containsExactly(true, false, false, false);
+        assertThat(taskRepository.existsById(own.getId())).isFalse();
+        assertThat(taskRepository.existsById(assigned.getId())).isTrue();
+    }
+
+    @Test
+    void statusTransitionUpdatesOnlyVisibleMatchingTasksInOneStatement() throws Exception {
+        LocalDate monday = LocalDate.of(2030, 1, 7);
+        Task own = testData.createTask("propia", ana, ana, Task.TaskStatus.IN_PROGRESS, monday);
+        Task assigned = testData.createTask("asignada", luis, ana, Task.TaskStatus.IN_PROGRESS, monday.plusDays(2));
+        Task foreign = testData.createTask("ajena", luis, luis, Task.TaskStatus.IN_PROGRESS, monday);
+        Task later = testData.createTask("siguiente", ana, ana, Task.TaskStatus.IN_PROGRESS, monday.plusDays(9));
+        Task todo = testData.createTask("pendiente", ana, ana, Task.TaskStatus.TODO, monday);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        String response = mockMvc.perform(post("/api/tasks/status-transitions")
+                        .header("Authorization", testData.bearerToken(ana))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of(
+                                "currentStatus", "IN_PROGRESS",
+                                "dueFrom", "2030-01-07",
+                                "dueTo", "2030-01-13",
+                                "targetStatus", "COMPLETED"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(objectMapper.readTree(response).get("updated").asInt()).isEqualTo(2);
+        // Un solo UPDATE de tareas con el filtro. Al confirmar: incremento y lectura del contador de versiones
+        // de cambio, y paso de las tareas cambiadas a la versión definitiva (búsqueda de ids y UPDATE por id)
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(5);
+        assertThat(taskRepository.findById(own.getId()).orElseThrow().getStatus())
+                .isEqualTo(Task.TaskStatus.COMPLETED);
+        assertThat(taskRepository.findById(assigned.getId()).orElseThrow().getStatus())
+                .isEqualTo(Task.TaskStatus.COMPLETED);
+        assertThat(taskRepository.findById(foreign.getId()).orElseThrow().getStatus())
+                .isEqualTo(Task.TaskStatus.IN_PROGRESS);
+        assertThat(taskRepository.findById(later.getId()).orElseThrow().getStatus())
+                .isEqualTo(Task.TaskStatus.IN_PROGRESS);
+        assertThat(taskRepository.findById(todo.getId()).orElseThrow().getStatus())
+                .isEqualTo(Task.TaskStatus.TODO);
+    }
+
+    @Test
+    void statusTransitionWithoutFiltersIsABadRequest() throws Exception {
+        mockMvc.perform(post("/api/tasks/status-transitions")
+                        .header("Authorization", testData.bearerToken(ana))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"targetStatus\": \"COMPLETED\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void emptyBatchIsABadRequest() throws Exception {
+        mockMvc.perform(post("/api/tasks/batch")
+                        .header("Authorization", testData.bearerToken(ana))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode perform(MockHttpServletRequestBuilder request, Object body, User user) throws Exception {
+        String response = mockMvc.perform(request
+                        .header("Authorization", testData.bearerToken(user))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+}
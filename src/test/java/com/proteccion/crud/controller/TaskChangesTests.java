@@ -0,0 +1,273 @@
+package com.proteccion.crud.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.Task;
+import com.proteccion.crud.models.User;
+import com.proteccion.crud.repository.TaskRepository;
+import com.proteccion.crud.services.TaskVersionAllocator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica el feed de cambios GET /api/tasks/changes: versiones, tombstones, visibilidad y paginación.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestDataFactory.class)
+class TaskChangesTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskVersionAllocator versionAllocator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User admin;
+    private User ana;
+    private User luis;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        admin = testData.createUser("admin", Role.RoleName.ROLE_ADMIN);
+        ana = testData.createUser("ana", Role.RoleName.ROLE_USER);
+        luis = testData.createUser("luis", Role.RoleName.ROLE_USER);
+    }
+
+    @Test
+    void changesSinceAVersionIncludeUpdatesAndTombstones() throws Exception {
+        long start = changes(ana, 0, null, 50).get("version").asLong();
+
+        long kept = create(ana, "se queda");
+        long removed = create(ana, "se borra");
+        JsonNode afterCreates = changes(ana, start, null, 50);
+        assertThat(titles(afterCreates)).containsExactly("se queda", "se borra");
+        long synced = afterCreates.get("version").asLong();
+        assertThat(synced).isGreaterThan(start);
+
+        perform(put("/api/tasks/" + kept), ana,
+                Map.of("title", "actualizada", "dueDate", "2030-01-01", "status", "COMPLETED"));
+        mockMvc.perform(delete("/api/tasks/" + removed).header("Authorization", testData.bearerToken(ana)))
+                .andExpect(status().isNoContent());
+
+        JsonNode delta = changes(ana, synced, null, 50);
+        assertThat(delta.get("items")).hasSize(2);
+        assertThat(delta.get("items").get(0).get("id").asLong()).isEqualTo(kept);
+        assertThat(delta.get("items").get(0).get("title").asText()).isEqualTo("actualizada");
+        assertThat(delta.get("items").get(0).get("deleted").asBoolean()).isFalse();
+        assertThat(delta.get("items").get(1).get("id").asLong()).isEqualTo(removed);
+        assertThat(delta.get("items").get(1).get("deleted").asBoolean()).isTrue();
+
+        // Nada nuevo desde la última versión; la tarea eliminada ya no aparece en las lecturas normales
+        assertThat(changes(ana, delta.get("version").asLong(), null, 50).get("items")).isEmpty();
+        mockMvc.perform(get("/api/tasks/" + removed).header("Authorization", testData.bearerToken(ana)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void usersOnlySeeChangesOfTheirTasks() throws Exception {
+        create(ana, "de ana");
+        create(luis, "de luis");
+        perform(post("/api/tasks"), luis,
+                Map.of("title", "de luis para ana", "dueDate", "2030-01-01", "assignedToId", ana.getId()));
+
+        assertThat(titles(changes(ana, 0, null, 50))).containsExactly("de ana", "de luis para ana");
+        assertThat(titles(changes(luis, 0, null, 50))).containsExactly("de luis", "de luis para ana");
+        assertThat(titles(changes(admin, 0, null, 50))).containsExactly("de ana", "de luis", "de luis para ana");
+    }
+
+    @Test
+    void reassignedTasksLeaveATombstoneForThePreviousAssignee() throws Exception {
+        User eva = testData.createUser("eva", Role.RoleName.ROLE_USER);
+        long id = perform(post("/api/tasks"), ana,
+                Map.of("title", "para luis", "dueDate", "2030-01-01", "assignedToId", luis.getId())).get("id").asLong();
+        long luisSynced = changes(luis, 0, null, 50).get("version").asLong();
+        long evaSynced = changes(eva, 0, null, 50).get("version").asLong();
+        long anaSynced = changes(ana, 0, null, 50).get("version").asLong();
+
+        // Actualización individual: luis deja de ver la tarea y recibe solo su id como eliminada
+        perform(put("/api/tasks/" + id), ana, Map.of("title", "para eva", "dueDate", "2030-01-01", "assignedToId", eva.getId()));
+
+        JsonNode luisDelta = changes(luis, luisSynced, null, 50);
+        assertThat(luisDelta.get("items")).hasSize(1);
+        assertThat(luisDelta.get("items").get(0).get("id").asLong()).isEqualTo(id);
+        assertThat(luisDelta.get("items").get(0).get("deleted").asBoolean()).isTrue();
+        assertThat(luisDelta.get("items").get(0).hasNonNull("title")).isFalse();
+        assertThat(titles(changes(eva, evaSynced, null, 50))).containsExactly("para eva");
+        // La creadora la sigue viendo: recibe la actualización, no un tombstone
+        JsonNode anaDelta = changes(ana, anaSynced, null, 50);
+        assertThat(titles(anaDelta)).containsExactly("para eva");
+        assertThat(anaDelta.get("items").get(0).get("deleted").asBoolean()).isFalse();
+
+        // Actualización por lotes: de vuelta a luis, ahora es eva quien recibe el tombstone
+        evaSynced = changes(eva, evaSynced, null, 50).get("version").asLong();
+        luisSynced = luisDelta.get("version").asLong();
+        perform(patch("/api/tasks/batch"), ana, List.of(Map.of("id", id, "assignedToId", luis.getId())));
+
+        JsonNode evaDelta = changes(eva, evaSynced, null, 50);
+        assertThat(evaDelta.get("items")).hasSize(1);
+        assertThat(evaDelta.get("items").get(0).get("deleted").asBoolean()).isTrue();
+        JsonNode luisBack = changes(luis, luisSynced, null, 50);
+        assertThat(titles(luisBack)).containsExactly("para eva");
+        assertThat(luisBack.get("items").get(0).get("deleted").asBoolean()).isFalse();
+    }
+
+    @Test
+    void pagesSplitChangesThatShareAVersion() throws Exception {
+        List<Map<String, Object>> batch = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            batch.add(Map.of("title", "lote-" + i, "dueDate", "2030-01-01"));
+        }
+        perform(post("/api/tasks/batch"), ana, batch);
+
+        List<String> titles = new ArrayList<>();
+        String cursor = null;
+        JsonNode page;
+        do {
+            page = changes(ana, 0, cursor, 2);
+            titles.addAll(titles(page));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        } while (cursor != null);
+
+        assertThat(titles).containsExactly("lote-0", "lote-1", "lote-2", "lote-3", "lote-4");
+        assertThat(changes(ana, page.get("version").asLong(), null, 2).get("items")).isEmpty();
+    }
+
+    @Test
+    void aMissingVersionCounterIsCreatedOnCommitWithoutGoingBack() throws Exception {
+        create(ana, "antes");
+        long synced = changes(ana, 0, null, 50).get("version").asLong();
+
+        // Fila del contador ausente, como en una base de datos donde aún no se creó
+        jdbcTemplate.update("delete from task_change_version");
+        create(ana, "después");
+
+        JsonNode delta = changes(ana, synced, null, 50);
+        assertThat(titles(delta)).containsExactly("después");
+        assertThat(delta.get("version").asLong()).isGreaterThan(synced);
+
+        // Crearla de nuevo no cambia nada
+        versionAllocator.createCounterIfMissing();
+        assertThat(versionAllocator.currentVersion()).isEqualTo(delta.get("version").asLong());
+    }
+
+    @Test
+    void openWriteTransactionsDoNotBlockOtherWritersNorHideTheirChanges() throws Exception {
+        long start = changes(ana, 0, null, 50).get("version").asLong();
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // Transacción lenta: ya escribió su tarea, pero todavía no confirma
+            Future<?> slow = executor.submit(() -> transactionTemplate.executeWithoutResult(tx -> {
+                Task task = testData.createTask("lenta", ana, ana, Task.TaskStatus.TODO, LocalDate.of(2030, 1, 1));
+                versionAllocator.assignTo(task);
+                taskRepository.flush();
+                written.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertThat(written.await(10, TimeUnit.SECONDS)).isTrue();
+
+            // Otra escritura confirma sin esperar a la transacción abierta
+            create(ana, "rápida");
+            JsonNode beforeCommit = changes(ana, start, null, 50);
+            assertThat(titles(beforeCommit)).containsExactly("rápida");
+
+            release.countDown();
+            slow.get(10, TimeUnit.SECONDS);
+
+            // La tarea lenta recibe una versión posterior: quien ya sincronizó no se la salta
+            JsonNode afterCommit = changes(ana, beforeCommit.get("version").asLong(), null, 50);
+            assertThat(titles(afterCommit)).containsExactly("lenta");
+            assertThat(afterCommit.get("items").get(0).get("version").asLong())
+                    .isGreaterThan(beforeCommit.get("version").asLong());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private long create(User user, String title) throws Exception {
+        return perform(post("/api/tasks"), user, Map.of("title", title, "dueDate", "2030-01-01"))
+                .get("id").asLong();
+    }
+
+    private JsonNode perform(MockHttpServletRequestBuilder request, User user, Object body) throws Exception {
+        String response = mockMvc.perform(request
+                        .header("Authorization", testData.bearerToken(user))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    private JsonNode changes(User user, long since, String cursor, int limit) throws Exception {
+        MockHttpServletRequestBuilder request = get("/api/tasks/changes")
+                .header("Authorization", testData.bearerToken(user))
+                .param("since", String.valueOf(since))
+                .param("limit", String.valueOf(limit));
+        if (cursor != null) {
+            request.param("cursor", cursor);
+        }
+        String response = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    private List<String> titles(JsonNode page) {
+        List<String> titles = new ArrayList<>();
+        page.get("items").forEach(item -> titles.add(item.get("title").asText()));
+        return titles;
+    }
+}
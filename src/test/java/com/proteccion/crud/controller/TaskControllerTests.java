@@ -0,0 +1,136 @@
+package com.proteccion.crud.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.Task;
+import com.proteccion.crud.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestDataFactory.class)
+class TaskControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    private User admin;
+    private User ana;
+    private User luis;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        admin = testData.createUser("admin", Role.RoleName.ROLE_ADMIN);
+        ana = testData.createUser("ana", Role.RoleName.ROLE_USER);
+        luis = testData.createUser("luis", Role.RoleName.ROLE_USER);
+
+        LocalDate dueDate = LocalDate.of(2030, 1, 1);
+        for (int i = 0; i < 5; i++) {
+            testData.createTask("ana-" + i, ana, ana, Task.TaskStatus.TODO, dueDate);
+            testData.createTask("luis-" + i, luis, luis, Task.TaskStatus.IN_PROGRESS, dueDate);
+        }
+        testData.createTask("luis-para-ana", luis, ana, Task.TaskStatus.IN_PROGRESS, dueDate);
+    }
+
+    @Test
+    void usersPageThroughOnlyTheirVisibleTasks() throws Exception {
+        List<String> titles = readAllPages("/api/tasks", ana, 2);
+
+        assertThat(titles).containsExactly("ana-0", "ana-1", "ana-2", "ana-3", "ana-4", "luis-para-ana");
+    }
+
+    @Test
+    void adminsPageThroughAllTasks() throws Exception {
+        assertThat(readAllPages("/api/tasks", admin, 4)).hasSize(11);
+    }
+
+    @Test
+    void statusPagesApplyTheStatusAndVisibility() throws Exception {
+        assertThat(readAllPages("/api/tasks/status/IN_PROGRESS", ana, 3)).containsExactly("luis-para-ana");
+        assertThat(readAllPages("/api/tasks/status/IN_PROGRESS", admin, 3)).hasSize(6);
+    }
+
+    @Test
+    void invalidCursorOrLimitIsABadRequest() throws Exception {
+        mockMvc.perform(get("/api/tasks").param("cursor", "***")
+                        .header("Authorization", testData.bearerToken(ana)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/tasks").param("limit", "0")
+                        .header("Authorization", testData.bearerToken(ana)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void adminsCanExportAllTasksAsNdjsonOrCsv() throws Exception {
+        MvcResult ndjson = mockMvc.perform(get("/api/tasks/export")
+                        .header("Authorization", testData.bearerToken(admin)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String lines = mockMvc.perform(asyncDispatch(ndjson))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(lines.lines()).hasSize(11)
+                .allSatisfy(line -> assertThat(objectMapper.readTree(line).get("title")).isNotNull());
+
+        MvcResult csv = mockMvc.perform(get("/api/tasks/export").param("format", "csv")
+                        .header("Authorization", testData.bearerToken(admin)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String rows = mockMvc.perform(asyncDispatch(csv))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(rows.lines()).hasSize(12).first().asString().startsWith("id,title,");
+    }
+
+    @Test
+    void exportIsForbiddenForRegularUsers() throws Exception {
+        mockMvc.perform(get("/api/tasks/export").header("Authorization", testData.bearerToken(ana)))
+                .andExpect(status().isForbidden());
+    }
+
+    private List<String> readAllPages(String path, User user, int limit) throws Exception {
+        List<String> titles = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get(path).param("limit", String.valueOf(limit))
+                    .header("Authorization", testData.bearerToken(user));
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            String body = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            JsonNode page = objectMapper.readTree(body);
+            assertThat(page.get("items").size()).isLessThanOrEqualTo(limit);
+            page.get("items").forEach(item -> titles.add(item.get("title").asText()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+        } while (cursor != null);
+        return titles;
+    }
+}
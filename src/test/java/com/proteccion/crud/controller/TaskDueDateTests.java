@@ -0,0 +1,160 @@
+package com.proteccion.crud.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.Task;
+import com.proteccion.crud.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Listados por fecha de vencimiento (dueFrom, dueTo, overdue): misma visibilidad que el listado completo,
+ * combinables con el filtro de estado y paginados por (dueDate, id).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestDataFactory.class)
+class TaskDueDateTests {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    private User ana;
+    private User luis;
+    private User admin;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        ana = testData.createUser("ana", Role.RoleName.ROLE_USER);
+        luis = testData.createUser("luis", Role.RoleName.ROLE_USER);
+        admin = testData.createUser("admin", Role.RoleName.ROLE_ADMIN);
+
+        // Creadas en orden distinto al de vencimiento para comprobar el orden por fecha
+        testData.createTask("ana-5", ana, ana, Task.TaskStatus.TODO, TODAY.plusDays(5));
+        testData.createTask("luis-para-ana-2", luis, ana, Task.TaskStatus.IN_PROGRESS, TODAY.plusDays(2));
+        testData.createTask("ana-para-luis-3", ana, luis, Task.TaskStatus.TODO, TODAY.plusDays(3));
+        testData.createTask("ana-2", ana, ana, Task.TaskStatus.COMPLETED, TODAY.plusDays(2));
+        testData.createTask("luis-4", luis, luis, Task.TaskStatus.TODO, TODAY.plusDays(4));
+        testData.createTask("ana-9", ana, ana, Task.TaskStatus.TODO, TODAY.plusDays(9));
+        // Vencidas: solo cuentan las no completadas
+        testData.createTask("ana-vencida", ana, ana, Task.TaskStatus.IN_PROGRESS, TODAY.minusDays(1));
+        testData.createTask("ana-completada", ana, ana, Task.TaskStatus.COMPLETED, TODAY.minusDays(3));
+        testData.createTask("luis-vencida", luis, luis, Task.TaskStatus.TODO, TODAY.minusDays(2));
+        testData.createTask("ana-hoy", ana, ana, Task.TaskStatus.TODO, TODAY);
+    }
+
+    @Test
+    void rangeReturnsTheVisibleTasksOrderedByDueDate() throws Exception {
+        JsonNode page = getPage(get("/api/tasks")
+                .param("dueFrom", TODAY.plusDays(2).toString())
+                .param("dueTo", TODAY.plusDays(5).toString()), ana);
+
+        // luis-4 es de otro usuario y ana-9 queda fuera del rango; a igual fecha se ordena por id
+        assertThat(titles(page)).containsExactly("luis-para-ana-2", "ana-2", "ana-para-luis-3", "ana-5");
+        assertThat(page.get("nextCursor").isNull()).isTrue();
+    }
+
+    @Test
+    void pagesFollowTheDueDateCursorWithoutDuplicates() throws Exception {
+        List<String> titles = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = get("/api/tasks")
+                    .param("dueFrom", TODAY.toString())
+                    .param("limit", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            JsonNode page = getPage(request, ana);
+            titles.addAll(titles(page));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(titles).containsExactly(
+                "ana-hoy", "luis-para-ana-2", "ana-2", "ana-para-luis-3", "ana-5", "ana-9");
+        assertThat(pages).isEqualTo(3);
+    }
+
+    @Test
+    void overdueExcludesCompletedAndFutureTasks() throws Exception {
+        assertThat(titles(getPage(get("/api/tasks").param("overdue", "true"), ana)))
+                .containsExactly("ana-vencida");
+        assertThat(titles(getPage(get("/api/tasks").param("overdue", "true"), admin)))
+                .containsExactly("luis-vencida", "ana-vencida");
+    }
+
+    @Test
+    void dueDateFiltersCombineWithStatus() throws Exception {
+        assertThat(titles(getPage(get("/api/tasks/status/TODO").param("dueTo", TODAY.plusDays(4).toString()),
+                admin)))
+                .containsExactly("luis-vencida", "ana-hoy", "ana-para-luis-3", "luis-4");
+        assertThat(titles(getPage(get("/api/tasks/status/IN_PROGRESS").param("overdue", "true"), ana)))
+                .containsExactly("ana-vencida");
+        assertThat(titles(getPage(get("/api/tasks/status/COMPLETED").param("overdue", "true"), ana)))
+                .isEmpty();
+    }
+
+    @Test
+    void newTasksAppearInCachedRanges() throws Exception {
+        MockHttpServletRequestBuilder request = get("/api/tasks").param("dueFrom", TODAY.plusDays(9).toString());
+        assertThat(titles(getPage(request, ana))).containsExactly("ana-9");
+
+        testData.createTask("luis-para-ana-9", luis, ana, Task.TaskStatus.TODO, TODAY.plusDays(9));
+
+        assertThat(titles(getPage(get("/api/tasks").param("dueFrom", TODAY.plusDays(9).toString()), ana)))
+                .containsExactly("ana-9", "luis-para-ana-9");
+    }
+
+    @Test
+    void invalidRangeIsRejected() throws Exception {
+        mockMvc.perform(get("/api/tasks")
+                        .param("dueFrom", TODAY.plusDays(5).toString())
+                        .param("dueTo", TODAY.toString())
+                        .header("Authorization", testData.bearerToken(ana)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/tasks")
+                        .param("dueFrom", "mañana")
+                        .header("Authorization", testData.bearerToken(ana)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode getPage(MockHttpServletRequestBuilder request, User user) throws Exception {
+        String body = mockMvc.perform(request.header("Authorization", testData.bearerToken(user)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private List<String> titles(JsonNode page) {
+        List<String> titles = new ArrayList<>();
+        page.get("items").forEach(item -> titles.add(item.get("title").asText()));
+        return titles;
+    }
+}
@@ -0,0 +1,74 @@
+package com.proteccion.crud.controller;
+
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.User;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exporta un número grande de tareas (por defecto un millón) con un heap pequeño.
+ * Se ejecuta con {@code gradle largeTest}, que limita el heap para que la prueba falle
+ * si la exportación materializa las filas en memoria.
+ */
+@Tag("large")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:file:./build/h2/export-large;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CACHE_SIZE=8192",
+        "spring.jpa.hibernate.ddl-auto=create"
+})
+@Import(TestDataFactory.class)
+class TaskExportLargeTests {
+
+    private static final int ROWS = Integer.getInteger("export.rows", 1_000_000);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Test
+    void exportStreamsEveryRowWithinASmallHeap() throws Exception {
+        User admin = testData.createUser("admin", Role.RoleName.ROLE_ADMIN);
+        jdbcTemplate.update("insert into tasks "
+                        + "(id, title, description, due_date, status, created_by, assigned_to, change_version, deleted) "
+                        + "select r.\"X\", concat('tarea-', r.\"X\"), 'exportación masiva', "
+                        + "date '2030-01-01', 'TODO', ?, ?, 0, false from system_range(1, ?) r",
+                admin.getId(), admin.getId(), ROWS);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/tasks/export"))
+                .header("Authorization", testData.bearerToken(admin))
+                .build();
+        HttpResponse<java.io.InputStream> response = HttpClient.newHttpClient()
+                .send(request, HttpResponse.BodyHandlers.ofInputStream());
+        assertThat(response.statusCode()).isEqualTo(200);
+
+        long lines = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            while (reader.readLine() != null) {
+                lines++;
+            }
+        }
+
+        assertThat(lines).isEqualTo(ROWS);
+    }
+}
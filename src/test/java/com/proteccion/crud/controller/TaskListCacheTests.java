@@ -0,0 +1,221 @@
+package com.proteccion.crud.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.Task;
+import com.proteccion.crud.models.User;
+import com.proteccion.crud.security.UserPrincipal;
+import com.proteccion.crud.services.TaskChangedEvent;
+import com.proteccion.crud.services.TaskListCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica la caché de listados de tareas: aciertos sin SQL, invalidación en las escrituras para
+ * creador y asignado, agrupación de cargas concurrentes y límite de usuarios con generación en memoria.
+ */
+@SpringBootTest(properties = "app.taskListCacheMaxUsers=100")
+@AutoConfigureMockMvc
+@Import(TestDataFactory.class)
+class TaskListCacheTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Autowired
+    private TaskListCache taskListCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User admin;
+    private User ana;
+    private User luis;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        admin = testData.createUser("admin", Role.RoleName.ROLE_ADMIN);
+        ana = testData.createUser("ana", Role.RoleName.ROLE_USER);
+        luis = testData.createUser("luis", Role.RoleName.ROLE_USER);
+        testData.createTask("de ana", ana, ana, Task.TaskStatus.TODO, LocalDate.of(2030, 1, 1));
+    }
+
+    @Test
+    void repeatedListingsAreServedFromTheCache() throws Exception {
+        String first = list("/api/tasks", ana);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        String second = list("/api/tasks", ana);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void writesInvalidateTheListsOfCreatorAssigneeAndAdmins() throws Exception {
+        assertThat(titles("/api/tasks", luis)).isEmpty();
+        assertThat(titles("/api/tasks/status/TODO", ana)).containsExactly("de ana");
+        assertThat(titles("/api/tasks", admin)).containsExactly("de ana");
+
+        String created = mockMvc.perform(post("/api/tasks")
+                        .header("Authorization", testData.bearerToken(ana))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title": "para luis", "dueDate": "2030-01-01", "assignedToId": %d}
+                                """.formatted(luis.getId())))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("id").asLong();
+
+        assertThat(titles("/api/tasks", luis)).containsExactly("para luis");
+        assertThat(titles("/api/tasks/status/TODO", ana)).containsExactly("de ana", "para luis");
+        assertThat(titles("/api/tasks", admin)).containsExactly("de ana", "para luis");
+
+        // El asignado actualiza la tarea: también cambia el listado del creador
+        mockMvc.perform(put("/api/tasks/" + id)
+                        .header("Authorization", testData.bearerToken(luis))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title": "para luis (en curso)", "dueDate": "2030-01-01", "status": "IN_PROGRESS"}
+                                """))
+                .andExpect(status().isOk());
+
+        assertThat(titles("/api/tasks", luis)).containsExactly("para luis (en curso)");
+        assertThat(titles("/api/tasks/status/TODO", ana)).containsExactly("de ana");
+
+        mockMvc.perform(delete("/api/tasks/" + id).header("Authorization", testData.bearerToken(ana)))
+                .andExpect(status().isNoContent());
+
+        assertThat(titles("/api/tasks", luis)).isEmpty();
+        assertThat(titles("/api/tasks", admin)).containsExactly("de ana");
+    }
+
+    @Test
+    void creatingAndDeletingATaskWithoutAssigneeInvalidatesTheCreatorList() throws Exception {
+        assertThat(titles("/api/tasks", ana)).containsExactly("de ana");
+
+        // Sin assignedToId la tarea se autoasigna: creador y asignado son el mismo usuario
+        String created = mockMvc.perform(post("/api/tasks")
+                        .header("Authorization", testData.bearerToken(ana))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title": "sin asignar", "dueDate": "2030-01-01"}
+                                """))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long id = objectMapper.readTree(created).get("id").asLong();
+
+        assertThat(titles("/api/tasks", ana)).containsExactly("de ana", "sin asignar");
+
+        mockMvc.perform(delete("/api/tasks/" + id).header("Authorization", testData.bearerToken(ana)))
+                .andExpect(status().isNoContent());
+
+        assertThat(titles("/api/tasks", ana)).containsExactly("de ana");
+    }
+
+    @Test
+    void concurrentMissesForTheSameKeyLoadOnce() throws Exception {
+        UserPrincipal principal = new UserPrincipal(ana.getId(), "ana", "",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return taskListCache.get(principal, null, "concurrente", 10, () -> {
+                        loads.incrementAndGet();
+                        try {
+                            Thread.sleep(200);
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return new byte[]{1};
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<byte[]> result : results) {
+                assertThat(result.get()).containsExactly(1);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void userGenerationsAreBounded() throws Exception {
+        for (long userId = 1_000_000; userId < 1_002_000; userId++) {
+            UserPrincipal principal = new UserPrincipal(userId, "usuario" + userId, "",
+                    List.of(new SimpleGrantedAuthority("ROLE_USER")));
+            taskListCache.get(principal, null, null, 10, () -> new byte[]{1});
+            taskListCache.onTaskChanged(new TaskChangedEvent(Set.of(userId)));
+        }
+
+        // El desalojo de Caffeine es asíncrono
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("task.list.cache.users").gauge().value() > 100) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private String list(String path, User user) throws Exception {
+        return mockMvc.perform(get(path).header("Authorization", testData.bearerToken(user)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private List<String> titles(String path, User user) throws Exception {
+        JsonNode page = objectMapper.readTree(list(path, user));
+        List<String> titles = new ArrayList<>();
+        page.get("items").forEach(item -> titles.add(item.get("title").asText()));
+        return titles;
+    }
+}
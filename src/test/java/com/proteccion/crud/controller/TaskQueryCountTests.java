@@ -0,0 +1,90 @@
+package com.proteccion.crud.controller;
+
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.Task;
+import com.proteccion.crud.models.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica con las estadísticas de Hibernate cuántas sentencias SQL ejecuta cada endpoint de listado.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestDataFactory.class)
+class TaskQueryCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User admin;
+    private User ana;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        admin = testData.createUser("admin", Role.RoleName.ROLE_ADMIN);
+        ana = testData.createUser("ana", Role.RoleName.ROLE_USER);
+
+        List<User> others = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            others.add(testData.createUser("usuario" + i, Role.RoleName.ROLE_USER));
+        }
+        for (User other : others) {
+            testData.createTask("de-" + other.getUsername(), other, ana, Task.TaskStatus.TODO, LocalDate.of(2030, 1, 1));
+            testData.createTask("para-" + other.getUsername(), ana, other, Task.TaskStatus.IN_PROGRESS,
+                    LocalDate.of(2030, 1, 1));
+        }
+    }
+
+    @Test
+    void listEndpointsDoNotLoadUsersPerTask() throws Exception {
+        // Administradores: una sola consulta. Usuarios: una búsqueda por índice para las tareas
+        // asignadas y otra para las creadas, sin importar cuántas tareas haya en la página.
+        assertStatementCount("/api/tasks", admin, 20, 1);
+        assertStatementCount("/api/tasks", ana, 20, 2);
+        assertStatementCount("/api/tasks/status/TODO", admin, 10, 1);
+        assertStatementCount("/api/tasks/status/IN_PROGRESS", ana, 10, 2);
+    }
+
+    private void assertStatementCount(String path, User user, int expectedItems, int expectedStatements)
+            throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        String token = testData.bearerToken(user);
+        statistics.clear();
+
+        mockMvc.perform(get(path).header("Authorization", token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(expectedItems))
+                .andExpect(jsonPath("$.items[0].createdByUsername").exists())
+                .andExpect(jsonPath("$.items[0].assignedToUsername").exists());
+
+        assertThat(statistics.getPrepareStatementCount())
+                .as("sentencias SQL en %s", path)
+                .isEqualTo(expectedStatements);
+    }
+}
@@ -0,0 +1,117 @@
+package com.proteccion.crud.controller;
+
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.dto.TaskChangeDto;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.User;
+import com.proteccion.crud.services.TaskStreamDispatcher;
+import com.proteccion.crud.services.TaskStreamEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Un suscriptor que nunca lee bloquea su envío en el socket. Con un solo hilo de envío, el plazo de
+ * escritura debe desconectarlo sin retrasar los eventos del resto de suscriptores.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.taskStreamThreads=1",
+        "app.taskStreamWriteTimeoutInMs=500",
+        "app.taskStreamQueueCapacity=10000"
+})
+@AutoConfigureMockMvc
+@Import(TestDataFactory.class)
+class TaskStreamSlowSubscriberTests {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Autowired
+    private TaskStreamDispatcher dispatcher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User ana;
+    private User luis;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        ana = testData.createUser("ana", Role.RoleName.ROLE_USER);
+        luis = testData.createUser("luis", Role.RoleName.ROLE_USER);
+    }
+
+    @Test
+    void aSubscriberThatNeverReadsIsDroppedWithoutDelayingTheOthers() throws Exception {
+        double droppedBefore = meterRegistry.get("task.stream.dropped").counter().count();
+
+        // Conexión real con un búfer de recepción mínimo que nunca se lee
+        try (Socket stalled = new Socket()) {
+            stalled.setReceiveBufferSize(4096);
+            stalled.connect(new InetSocketAddress("localhost", port));
+            OutputStream out = stalled.getOutputStream();
+            out.write(("GET /api/tasks/stream HTTP/1.1\r\nHost: localhost\r\nAccept: text/event-stream\r\n"
+                    + "Authorization: " + testData.bearerToken(ana) + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            await(() -> dispatcher.subscriberCount() == 1, "la suscripción de ana");
+
+            MockHttpServletResponse stream = mockMvc.perform(get("/api/tasks/stream")
+                            .header("Authorization", testData.bearerToken(luis)))
+                    .andExpect(request().asyncStarted())
+                    .andReturn().getResponse();
+
+            // Unos 12 MB para ana: más de lo que caben en los búferes del socket, así que su envío se bloquea
+            String description = "x".repeat(64 * 1024);
+            for (long id = 1; id <= 200; id++) {
+                dispatcher.onTaskStreamEvent(new TaskStreamEvent(TaskStreamEvent.Type.CREATED,
+                        change(id, "para ana", description, ana), null));
+            }
+            dispatcher.onTaskStreamEvent(new TaskStreamEvent(TaskStreamEvent.Type.CREATED,
+                    change(1000, "para luis", null, luis), null));
+
+            await(() -> stream.getContentAsString().contains("para luis"), "el evento de luis");
+            await(() -> dispatcher.subscriberCount() == 1, "la desconexión de ana");
+            assertThat(meterRegistry.get("task.stream.dropped").counter().count()).isEqualTo(droppedBefore + 1);
+        }
+    }
+
+    private TaskChangeDto change(long id, String title, String description, User user) {
+        return new TaskChangeDto(id, title, description, LocalDate.of(2030, 1, 1), "TODO",
+                user.getId(), user.getUsername(), user.getId(), user.getUsername(), id, false);
+    }
+
+    private void await(Callable<Boolean> condition, String description) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.call()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("No se cumplió a tiempo: " + description);
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.proteccion.crud.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica el stream SSE de cambios de tareas. Usa un contexto propio: las suscripciones abiertas harían
+ * que otras pruebas construyeran eventos. La memoria por suscriptor inactivo se mide en perfTest.
+ */
+@SpringBootTest(properties = "app.taskStreamQueueCapacity=64")
+@AutoConfigureMockMvc
+@Import(TestDataFactory.class)
+class TaskStreamTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    private User ana;
+    private User luis;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        ana = testData.createUser("ana", Role.RoleName.ROLE_USER);
+        luis = testData.createUser("luis", Role.RoleName.ROLE_USER);
+    }
+
+    @Test
+    void subscribersReceiveChangesOfTheirTasksAfterCommit() throws Exception {
+        MockHttpServletResponse stream = mockMvc.perform(get("/api/tasks/stream")
+                        .header("Authorization", testData.bearerToken(ana)))
+                .andExpect(request().asyncStarted())
+                .andReturn().getResponse();
+
+        perform(post("/api/tasks"), luis, Map.of("title", "solo de luis", "dueDate", "2030-01-01"));
+        long reassigned = createFor(ana, "para ana");
+        long removed = createFor(ana, "para borrar");
+        // Al reasignarla, ana deja de verla: recibe solo el tombstone, sin los datos nuevos de la tarea
+        perform(put("/api/tasks/" + reassigned), luis,
+                Map.of("title", "para luis", "dueDate", "2030-01-01", "assignedToId", luis.getId()));
+        mockMvc.perform(delete("/api/tasks/" + removed).header("Authorization", testData.bearerToken(luis)))
+                .andExpect(status().isNoContent());
+
+        List<JsonNode> created = awaitEvents(stream, "created", 2);
+        assertThat(created).extracting(event -> event.get("title").asText()).containsExactly("para ana", "para borrar");
+        List<JsonNode> deleted = awaitEvents(stream, "deleted", 2);
+        JsonNode revoked = deleted.get(0);
+        assertThat(revoked.get("id").asLong()).isEqualTo(reassigned);
+        assertThat(revoked.get("deleted").asBoolean()).isTrue();
+        assertThat(revoked.has("title")).isFalse();
+        assertThat(revoked.has("assignedToId")).isFalse();
+        assertThat(deleted.get(1).get("id").asLong()).isEqualTo(removed);
+        assertThat(deleted.get(1).get("deleted").asBoolean()).isTrue();
+        assertThat(deleted.get(1).get("version").asLong()).isGreaterThan(revoked.get("version").asLong());
+        assertThat(stream.getContentAsString()).doesNotContain("event:updated").doesNotContain("solo de luis")
+                .doesNotContain("para luis");
+    }
+
+    private long createFor(User assignee, String title) throws Exception {
+        return perform(post("/api/tasks"), luis,
+                Map.of("title", title, "dueDate", "2030-01-01", "assignedToId", assignee.getId())).get("id").asLong();
+    }
+
+    private JsonNode perform(MockHttpServletRequestBuilder request, User user, Object body) throws Exception {
+        String response = mockMvc.perform(request
+                        .header("Authorization", testData.bearerToken(user))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(body)))
+                .andExpect(status().is2xxSuccessful())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response);
+    }
+
+    // Los eventos se envían desde los hilos del dispatcher: se espera a que lleguen
+    private List<JsonNode> awaitEvents(MockHttpServletResponse stream, String name, int count) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        List<JsonNode> events;
+        do {
+            events = new ArrayList<>();
+            for (String block : stream.getContentAsString().split("\n\n")) {
+                if (block.contains("event:" + name + "\n")) {
+                    String data = block.substring(block.indexOf("data:") + "data:".length());
+                    events.add(objectMapper.readTree(data));
+                }
+            }
+            if (events.size() >= count) {
+                return events;
+            }
+            Thread.sleep(20);
+        } while (System.currentTimeMillis() < deadline);
+        throw new AssertionError("No llegaron " + count + " eventos " + name + ": " + stream.getContentAsString());
+    }
+}
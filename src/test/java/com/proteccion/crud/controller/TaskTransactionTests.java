@@ -0,0 +1,91 @@
+package com.proteccion.crud.controller;
+
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.Task;
+import com.proteccion.crud.models.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Límites de transacción de TaskService: las lecturas son transacciones de solo lectura (sin flush ni
+ * dirty checking), cada escritura es una sola transacción y no hay sesión abierta fuera del servicio.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(TestDataFactory.class)
+class TaskTransactionTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private User ana;
+    private Task task;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        ana = testData.createUser("ana", Role.RoleName.ROLE_USER);
+        task = testData.createTask("propia", ana, ana, Task.TaskStatus.TODO, LocalDate.of(2030, 1, 1));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void openInViewIsDisabled() {
+        assertThat(applicationContext.getBeanProvider(OpenEntityManagerInViewInterceptor.class).getIfAvailable())
+                .isNull();
+    }
+
+    @Test
+    void readsRunInReadOnlyTransactionsWithoutFlushing() throws Exception {
+        mockMvc.perform(get("/api/tasks/" + task.getId()).header("Authorization", testData.bearerToken(ana)))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/tasks/status/TODO").header("Authorization", testData.bearerToken(ana)))
+                .andExpect(status().isOk());
+
+        assertThat(statistics.getTransactionCount()).isPositive();
+        assertThat(statistics.getFlushCount()).isZero();
+    }
+
+    @Test
+    void aWriteIsASingleTransaction() throws Exception {
+        mockMvc.perform(put("/api/tasks/" + task.getId())
+                        .header("Authorization", testData.bearerToken(ana))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"editada\", \"dueDate\": \"2030-02-01\", \"status\": \"IN_PROGRESS\"}"))
+                .andExpect(status().isOk());
+
+        // Una transacción para la actualización; la autenticación del filtro JWT no abre ninguna más
+        assertThat(statistics.getSuccessfulTransactionCount()).isEqualTo(1);
+        assertThat(statistics.getFlushCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,104 @@
+package com.proteccion.crud.controller;
+
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.Task;
+import com.proteccion.crud.models.User;
+import com.proteccion.crud.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica la caché de segundo nivel de User, Role y User.roles con la autenticación respaldada por
+ * base de datos, que carga el usuario en cada solicitud.
+ */
+@SpringBootTest(properties = "app.jwtStatelessAuthentication=false")
+@AutoConfigureMockMvc
+@Import(TestDataFactory.class)
+class UserCacheTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User ana;
+    private Task task;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        ana = testData.createUser("ana", Role.RoleName.ROLE_USER);
+        User bob = testData.createUser("bob", Role.RoleName.ROLE_USER);
+        task = testData.createTask("de bob", bob, ana, Task.TaskStatus.TODO, LocalDate.of(2030, 1, 1));
+        testData.createTask("de ana", ana, bob, Task.TaskStatus.TODO, LocalDate.of(2030, 1, 1));
+    }
+
+    @Test
+    void repeatedTaskReadsDoNotLoadUsersOrRolesAfterWarmUp() throws Exception {
+        String token = testData.bearerToken(ana);
+        readTasks(token);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        for (int i = 0; i < 3; i++) {
+            readTasks(token);
+        }
+
+        assertThat(statistics.getEntityStatistics(User.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getEntityStatistics(Role.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getCollectionStatistics(User.class.getName() + ".roles").getLoadCount()).isZero();
+        assertThat(statistics.getQueryCacheMissCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(6);
+        assertThat(statistics.getSecondLevelCacheHitCount()).isPositive();
+    }
+
+    @Test
+    void signupInvalidatesCachedUsernameLookups() throws Exception {
+        assertThat(userRepository.findByUsername("nuevo")).isEmpty();
+
+        MvcResult signup = mockMvc.perform(post("/api/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"name": "Nuevo", "username": "nuevo", "email": "nuevo@proteccion.com",
+                                 "password": "secreto123"}
+                                """))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(signup)).andExpect(status().isOk());
+
+        assertThat(userRepository.findByUsername("nuevo")).isPresent();
+    }
+
+    private void readTasks(String token) throws Exception {
+        mockMvc.perform(get("/api/tasks").header("Authorization", token)).andExpect(status().isOk());
+        mockMvc.perform(get("/api/tasks/" + task.getId()).header("Authorization", token))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,82 @@
+package com.proteccion.crud.repository;
+
+import com.proteccion.crud.config.ConcurrencyLimitedDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Modo de hilos virtuales: el DataSource de la aplicación no entrega más conexiones simultáneas que
+ * permisos tiene su semáforo, por muchos hilos que las pidan.
+ */
+@SpringBootTest(properties = {
+        "spring.threads.virtual.enabled=true",
+        "app.datasource.connectionPermits=3",
+        "app.datasource.connectionPermitTimeoutInMs=1000"
+})
+class ConnectionLimitTests {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Test
+    void connectionsBeyondThePermitsWaitAndThenFail() throws Exception {
+        assertThat(dataSource).isInstanceOf(ConcurrencyLimitedDataSource.class);
+
+        List<Connection> open = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            open.add(dataSource.getConnection());
+        }
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+        // Cerrar dos veces la misma conexión devuelve un solo permiso
+        open.get(0).close();
+        open.get(0).close();
+        try (Connection connection = dataSource.getConnection()) {
+            assertThat(connection.isValid(1)).isTrue();
+            assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        }
+        for (Connection connection : open.subList(1, open.size())) {
+            connection.close();
+        }
+        assertThat(((ConcurrencyLimitedDataSource) dataSource).getAvailablePermits()).isEqualTo(3);
+    }
+
+    @Test
+    void manyVirtualThreadsShareThePermits() throws Exception {
+        ConcurrencyLimitedDataSource limited = (ConcurrencyLimitedDataSource) dataSource;
+        AtomicInteger maxInUse = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                results.add(executor.submit(() -> {
+                    long count = taskRepository.count();
+                    maxInUse.accumulateAndGet(3 - limited.getAvailablePermits(), Math::max);
+                    return count;
+                }));
+            }
+            for (Future<Long> result : results) {
+                assertThat(result.get()).isNotNegative();
+            }
+        }
+        assertThat(maxInUse.get()).isBetween(0, 3);
+        assertThat(limited.getAvailablePermits()).isEqualTo(3);
+    }
+}
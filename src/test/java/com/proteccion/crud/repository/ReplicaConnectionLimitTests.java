@@ -0,0 +1,58 @@
+package com.proteccion.crud.repository;
+
+import com.proteccion.crud.config.ConcurrencyLimitedDataSource;
+import com.proteccion.crud.config.ReplicaRoutingDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Modo de hilos virtuales con réplicas de lectura: cada pool detrás del enrutamiento tiene su propio
+ * límite, igual a su tamaño, y agotar el del primario no impide leer de la réplica.
+ */
+@SpringBootTest(properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.datasource.hikari.maximum-pool-size=2",
+        "spring.datasource.hikari.connection-timeout=500",
+        "app.datasource.replicas=jdbc:h2:mem:replica-${random.uuid};MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+class ReplicaConnectionLimitTests {
+
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @Test
+    void eachRoutedPoolHasItsOwnPermits() throws Exception {
+        DataSource primary = routingDataSource.getResolvedDefaultDataSource();
+        DataSource replica = routingDataSource.getResolvedDataSources().get("replica-0");
+        assertThat(primary).isInstanceOf(ConcurrencyLimitedDataSource.class);
+        assertThat(replica).isInstanceOf(ConcurrencyLimitedDataSource.class);
+        assertThat(((ConcurrencyLimitedDataSource) primary).getMaxConnections()).isEqualTo(2);
+        assertThat(((ConcurrencyLimitedDataSource) replica).getMaxConnections()).isEqualTo(10);
+
+        List<Connection> open = new ArrayList<>();
+        try {
+            open.add(primary.getConnection());
+            open.add(primary.getConnection());
+            assertThatThrownBy(primary::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+            try (Connection connection = replica.getConnection()) {
+                assertThat(connection.isValid(1)).isTrue();
+            }
+        } finally {
+            for (Connection connection : open) {
+                connection.close();
+            }
+        }
+        assertThat(((ConcurrencyLimitedDataSource) primary).getAvailablePermits()).isEqualTo(2);
+    }
+}
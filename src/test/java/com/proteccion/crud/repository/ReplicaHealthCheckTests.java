@@ -0,0 +1,93 @@
+package com.proteccion.crud.repository;
+
+import com.proteccion.crud.config.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * La comprobación de salud de las réplicas usa su propia conexión con un plazo corto: una réplica con
+ * el pool agotado sigue sana, y una que no responde no retrasa la creación del DataSource.
+ */
+class ReplicaHealthCheckTests {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void aReplicaWithAnExhaustedPoolStaysHealthy() throws Exception {
+        HikariDataSource replica = pool("replica-0", "jdbc:h2:mem:replica-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        replica.setMaximumPoolSize(1);
+        // Con el pool de lecturas, la comprobación esperaría este plazo y marcaría la réplica como caída
+        replica.setConnectionTimeout(250);
+        try (ReplicaRoutingDataSource routing = routing(replica)) {
+            await(() -> healthyReplicas() == 1, "la primera comprobación");
+
+            try (Connection busy = replica.getConnection()) {
+                // Varias comprobaciones con la única conexión del pool ocupada
+                Thread.sleep(1000);
+                assertThat(healthyReplicas()).isEqualTo(1);
+            }
+        }
+    }
+
+    @Test
+    void anUnresponsiveReplicaDoesNotDelayStartup() throws Exception {
+        // Acepta la conexión TCP pero nunca envía el saludo de MySQL
+        try (ServerSocket silent = new ServerSocket(0)) {
+            HikariDataSource replica = pool("replica-0",
+                    "jdbc:mysql://localhost:" + silent.getLocalPort() + "/taskmanager");
+            long start = System.nanoTime();
+            try (ReplicaRoutingDataSource routing = routing(replica)) {
+                assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+
+                Thread.sleep(500);
+                assertThat(healthyReplicas()).isZero();
+            }
+        }
+    }
+
+    private ReplicaRoutingDataSource routing(HikariDataSource replica) {
+        HikariDataSource primary = pool("primary", "jdbc:h2:mem:primary-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        return new ReplicaRoutingDataSource(primary, List.of(replica), Duration.ofSeconds(5),
+                Duration.ofMillis(100), Duration.ofMillis(250), meterRegistry) {
+            @Override
+            public void close() {
+                super.close();
+                primary.close();
+            }
+        };
+    }
+
+    private static HikariDataSource pool(String name, String url) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setJdbcUrl(url);
+        pool.setUsername("sa");
+        pool.setPassword("");
+        return pool;
+    }
+
+    private double healthyReplicas() {
+        return meterRegistry.get("datasource.replicas.healthy").gauge().value();
+    }
+
+    private void await(Callable<Boolean> condition, String description) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.call()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new AssertionError("No se cumplió a tiempo: " + description);
+            }
+            Thread.sleep(20);
+        }
+    }
+}
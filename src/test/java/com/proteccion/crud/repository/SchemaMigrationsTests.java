@@ -0,0 +1,79 @@
+package com.proteccion.crud.repository;
+
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.config.SchemaMigrations;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.Task;
+import com.proteccion.crud.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica los ajustes de {@link SchemaMigrations} sobre una base de datos con datos anteriores.
+ */
+@SpringBootTest
+@Import(TestDataFactory.class)
+class SchemaMigrationsTests {
+
+    @Autowired
+    private SchemaMigrations schemaMigrations;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    private User ana;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        ana = testData.createUser("ana", Role.RoleName.ROLE_USER);
+    }
+
+    @Test
+    void taskSequenceMovesPastIdsAssignedByIdentity() {
+        // Una tarea creada cuando el id era IDENTITY, muy por delante de la secuencia
+        Task task = testData.createTask("antigua", ana, ana, Task.TaskStatus.TODO, LocalDate.of(2030, 1, 1));
+        jdbcTemplate.update("update tasks set id = 1000000 where id = ?", task.getId());
+
+        schemaMigrations.migrate();
+        // El siguiente bloque del optimizador pooled (valor - 49 a valor) no alcanza ids existentes
+        long next = nextSequenceValue();
+        assertThat(next - Task.ID_ALLOCATION_SIZE + 1).isGreaterThan(1000000);
+
+        // Repetirla no hace retroceder la secuencia
+        schemaMigrations.migrate();
+        assertThat(nextSequenceValue()).isGreaterThan(next);
+    }
+
+    @Test
+    void legacyUserUniqueKeysAreDropped() {
+        // Claves con nombres generados, como las de @Column(unique = true)
+        jdbcTemplate.execute("alter table users add constraint UK_legacy_username unique (username)");
+        jdbcTemplate.execute("alter table users add constraint UK_legacy_email unique (email)");
+
+        schemaMigrations.migrate();
+
+        assertThat(uniqueConstraints()).containsExactlyInAnyOrder(User.USERNAME_CONSTRAINT, User.EMAIL_CONSTRAINT);
+    }
+
+    private List<String> uniqueConstraints() {
+        return jdbcTemplate.queryForList("select lower(constraint_name) from information_schema.table_constraints "
+                + "where table_name = 'users' and constraint_type = 'UNIQUE'", String.class);
+    }
+
+    private long nextSequenceValue() {
+        return jdbcTemplate.queryForObject("select next value for " + Task.ID_SEQUENCE, Long.class);
+    }
+}
@@ -0,0 +1,99 @@
+package com.proteccion.crud.repository;
+
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.Task;
+import com.proteccion.crud.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Comprueba con EXPLAIN de H2 que las consultas de listado usan los índices declarados en {@link Task}.
+ */
+@SpringBootTest
+@Import(TestDataFactory.class)
+class TaskIndexPlanTests {
+
+    private static final String SELECT = "select t.id, t.title, cb.username, a.username from tasks t "
+            + "left join users cb on cb.id = t.created_by left join users a on a.id = t.assigned_to ";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        User[] users = new User[20];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = testData.createUser("usuario" + i, Role.RoleName.ROLE_USER);
+        }
+        Task.TaskStatus[] statuses = Task.TaskStatus.values();
+        for (int i = 0; i < 200; i++) {
+            testData.createTask("tarea-" + i, users[i % users.length], users[(i * 7) % users.length],
+                    statuses[i % statuses.length], LocalDate.of(2030, 1, 1).plusDays(i));
+        }
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    void assignedAndCreatedPagesUseTheOwnerIndexes() {
+        assertThat(plan(SELECT + "where t.assigned_to = 1 and t.id > 0 order by t.id limit 51"))
+                .contains("idx_tasks_assigned_to_id");
+        assertThat(plan(SELECT + "where t.created_by = 1 and t.id > 0 order by t.id limit 51"))
+                .contains("idx_tasks_created_by_id");
+    }
+
+    @Test
+    void statusPagesUseTheOwnerAndStatusIndexes() {
+        assertThat(plan(SELECT + "where t.assigned_to = 1 and t.status = 'TODO' and t.id > 0 "
+                + "order by t.id limit 51"))
+                .contains("idx_tasks_assigned_to_status");
+        assertThat(plan(SELECT + "where t.created_by = 1 and t.status = 'TODO' and t.id > 0 "
+                + "order by t.id limit 51"))
+                .contains("idx_tasks_created_by_status");
+        assertThat(plan(SELECT + "where t.status = 'TODO' and t.id > 0 order by t.id limit 51"))
+                .contains("idx_tasks_status_id");
+    }
+
+    @Test
+    void changeFeedUsesTheVersionIndexes() {
+        String range = "(t.change_version > 3 or (t.change_version = 3 and t.id > 10)) and t.change_version <= 90 "
+                + "order by t.change_version, t.id limit 51";
+        assertThat(plan(SELECT + "where " + range)).contains("idx_tasks_change_version");
+        assertThat(plan(SELECT + "where t.assigned_to = 1 and " + range)).contains("idx_tasks_assigned_to_version");
+        assertThat(plan(SELECT + "where t.created_by = 1 and " + range)).contains("idx_tasks_created_by_version");
+        assertThat(plan("select r.task_id from task_revocations r where r.user_id = 1 "
+                + "and (r.change_version > 3 or (r.change_version = 3 and r.task_id > 10)) and r.change_version <= 90 "
+                + "order by r.change_version, r.task_id limit 51"))
+                .contains("idx_task_revocations_user_version");
+    }
+
+    @Test
+    void dueDatePagesUseTheDueDateIndexes() {
+        String range = "t.due_date >= date '2030-02-01' and t.due_date <= date '2030-03-01' "
+                + "and (t.due_date > date '2030-02-01' or (t.due_date = date '2030-02-01' and t.id > 0)) "
+                + "order by t.due_date, t.id limit 51";
+        String overdue = "t.status in ('TODO', 'IN_PROGRESS') and ";
+        assertThat(plan(SELECT + "where " + range)).contains("idx_tasks_due_date");
+        assertThat(plan(SELECT + "where " + overdue + range)).contains("idx_tasks_status_due");
+        assertThat(plan(SELECT + "where t.assigned_to = 1 and " + overdue + range))
+                .contains("idx_tasks_assigned_to_due");
+        assertThat(plan(SELECT + "where t.created_by = 1 and " + overdue + range))
+                .contains("idx_tasks_created_by_due");
+    }
+
+    private String plan(String sql) {
+        return jdbcTemplate.queryForObject("explain " + sql, String.class).toLowerCase();
+    }
+}
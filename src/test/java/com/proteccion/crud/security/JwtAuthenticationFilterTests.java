@@ -0,0 +1,132 @@
+package com.proteccion.crud.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class JwtAuthenticationFilterTests {
+
+    private JwtTokenProvider tokenProvider;
+    private UserDetailsServiceImpl userDetailsService;
+    private String token;
+
+    @BeforeEach
+    void setUp() {
+        tokenProvider = new JwtTokenProvider();
+        ReflectionTestUtils.setField(tokenProvider, "jwtSecret",
+                "TestJwtSecretKeyThatIsLongEnoughForHmacSha256Signatures");
+        ReflectionTestUtils.setField(tokenProvider, "jwtExpirationInMs", 3600000);
+        ReflectionTestUtils.setField(tokenProvider, "jwtCacheMaxSize", 100);
+        ReflectionTestUtils.setField(tokenProvider, "jwtCacheTtlInMs", 60000L);
+        tokenProvider.init();
+
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_ADMIN"));
+        User principal = new User("ana", "secreto", authorities);
+        token = tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, authorities));
+
+        userDetailsService = mock(UserDetailsServiceImpl.class);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void statelessModeBuildsAuthenticationFromClaimsWithoutLoadingTheUser() throws Exception {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(tokenProvider, userDetailsService, true);
+
+        filter.doFilter(bearerRequest(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication).isNotNull();
+        assertThat(authentication.getName()).isEqualTo("ana");
+        assertThat(authentication.getAuthorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_ADMIN");
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    void statelessModeCarriesTheUserIdAndAdminFlagInThePrincipal() throws Exception {
+        List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_ADMIN"));
+        UserPrincipal principal = new UserPrincipal(42L, "ana", "secreto", authorities);
+        String tokenWithUid = tokenProvider.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, authorities));
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(tokenProvider, userDetailsService, true);
+
+        filter.doFilter(bearerRequest(tokenWithUid), new MockHttpServletResponse(), new MockFilterChain());
+
+        Object authenticated = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        assertThat(authenticated).isInstanceOf(UserPrincipal.class);
+        assertThat(((UserPrincipal) authenticated).getId()).isEqualTo(42L);
+        assertThat(((UserPrincipal) authenticated).isAdmin()).isTrue();
+    }
+
+    @Test
+    void databaseModeLoadsTheUser() throws Exception {
+        when(userDetailsService.loadUserByUsername("ana"))
+                .thenReturn(new User("ana", "secreto", List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(tokenProvider, userDetailsService, false);
+
+        filter.doFilter(bearerRequest(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getAuthorities())
+                .extracting(GrantedAuthority::getAuthority)
+                .containsExactly("ROLE_USER");
+        verify(userDetailsService).loadUserByUsername("ana");
+    }
+
+    @Test
+    void repeatedRequestsAreServedFromTheVerifiedTokenCache() throws Exception {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(tokenProvider, userDetailsService, true);
+
+        filter.doFilter(bearerRequest(token), new MockHttpServletResponse(), new MockFilterChain());
+        SecurityContextHolder.clearContext();
+        filter.doFilter(bearerRequest(token), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getName()).isEqualTo("ana");
+        assertThat(tokenProvider.getTokenCache().getMissCount()).isEqualTo(1);
+        assertThat(tokenProvider.getTokenCache().getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    void invalidTokenLeavesTheRequestUnauthenticated() throws Exception {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(tokenProvider, userDetailsService, true);
+
+        int signatureStart = token.lastIndexOf('.') + 1;
+        char tampered = token.charAt(signatureStart) == 'A' ? 'B' : 'A';
+        String invalidToken = token.substring(0, signatureStart) + tampered + token.substring(signatureStart + 1);
+
+        filter.doFilter(bearerRequest(invalidToken), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    private MockHttpServletRequest bearerRequest(String jwt) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/tasks");
+        request.addHeader("Authorization", "Bearer " + jwt);
+        return request;
+    }
+}
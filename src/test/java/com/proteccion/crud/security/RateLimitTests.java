@@ -0,0 +1,150 @@
+package com.proteccion.crud.security;
+
+import com.proteccion.crud.TestDataFactory;
+import com.proteccion.crud.models.Role;
+import com.proteccion.crud.models.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica el limitador de solicitudes: cubetas por usuario y por IP (también detrás de un proxy de
+ * confianza), cabeceras y 429, y que los consumos concurrentes de una misma cubeta no se pierdan ni se dupliquen.
+ */
+@SpringBootTest(properties = {
+        "app.rateLimit.enabled=true",
+        "app.rateLimit.read.capacity=3",
+        "app.rateLimit.read.refillPerSecond=0.001",
+        "app.rateLimit.auth.capacity=2",
+        "app.rateLimit.auth.refillPerSecond=0.001",
+        "app.rateLimit.write.capacity=1000",
+        "app.rateLimit.write.refillPerSecond=0.001",
+        "app.rateLimit.trustedProxies=10.1.0.0/16"
+})
+@AutoConfigureMockMvc
+@Import(TestDataFactory.class)
+class RateLimitTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TestDataFactory testData;
+
+    @Autowired
+    private RateLimiter rateLimiter;
+
+    private User ana;
+    private User luis;
+
+    @BeforeEach
+    void setUp() {
+        testData.deleteAll();
+        ana = testData.createUser("ana", Role.RoleName.ROLE_USER);
+        luis = testData.createUser("luis", Role.RoleName.ROLE_USER);
+    }
+
+    @Test
+    void authenticatedRequestsAreLimitedPerUser() throws Exception {
+        for (int remaining = 2; remaining >= 0; remaining--) {
+            mockMvc.perform(get("/api/tasks").header("Authorization", testData.bearerToken(ana)))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(RateLimitFilter.LIMIT_HEADER, "3"))
+                    .andExpect(header().string(RateLimitFilter.REMAINING_HEADER, String.valueOf(remaining)));
+        }
+        mockMvc.perform(get("/api/tasks").header("Authorization", testData.bearerToken(ana)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(RateLimitFilter.REMAINING_HEADER, "0"))
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER))
+                // El cuerpo lo escribe el filtro; no depende de un despacho a /error
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.message").value(startsWith("Demasiadas solicitudes")))
+                .andExpect(jsonPath("$.details").value("uri=/api/tasks"));
+
+        mockMvc.perform(get("/api/tasks").header("Authorization", testData.bearerToken(luis)))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void authEndpointsAreLimitedPerClientIp() throws Exception {
+        mockMvc.perform(availability("10.0.0.1")).andExpect(status().isOk());
+        mockMvc.perform(availability("10.0.0.1")).andExpect(status().isOk());
+        mockMvc.perform(availability("10.0.0.1")).andExpect(status().isTooManyRequests());
+
+        mockMvc.perform(availability("10.0.0.2")).andExpect(status().isOk());
+    }
+
+    @Test
+    void clientsBehindATrustedProxyAreLimitedByTheForwardedAddress() throws Exception {
+        // Dos clientes detrás del mismo balanceador tienen cubetas distintas
+        mockMvc.perform(availability("10.1.0.5").header("X-Forwarded-For", "203.0.113.5"))
+                .andExpect(status().isOk());
+        mockMvc.perform(availability("10.1.0.6").header("X-Forwarded-For", "203.0.113.5, 10.1.0.5"))
+                .andExpect(status().isOk());
+        mockMvc.perform(availability("10.1.0.5").header("X-Forwarded-For", "203.0.113.6"))
+                .andExpect(status().isOk());
+
+        // Una dirección agregada por el cliente a la izquierda no le da una cubeta nueva
+        mockMvc.perform(availability("10.1.0.5").header("X-Forwarded-For", "198.51.100.7, 203.0.113.5"))
+                .andExpect(status().isTooManyRequests());
+
+        // Sin un proxy de confianza delante la cabecera se ignora: cuenta la IP de la conexión
+        mockMvc.perform(availability("192.0.2.9").header("X-Forwarded-For", "203.0.113.5"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void concurrentRequestsConsumeExactlyTheBucketCapacity() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int thread = 0; thread < 16; thread++) {
+                results.add(executor.submit(() -> {
+                    int allowed = 0;
+                    for (int i = 0; i < 200; i++) {
+                        if (rateLimiter.tryConsume(RateLimiter.Group.WRITE, "user:concurrente").allowed()) {
+                            allowed++;
+                        }
+                    }
+                    return allowed;
+                }));
+            }
+            int allowed = 0;
+            for (Future<Integer> result : results) {
+                allowed += result.get();
+            }
+            assertThat(allowed).isEqualTo(1000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private MockHttpServletRequestBuilder availability(String remoteAddress) {
+        return get("/api/auth/availability").param("username", "libre")
+                .with(request -> {
+                    request.setRemoteAddr(remoteAddress);
+                    return request;
+                });
+    }
+}
@@ -0,0 +1,57 @@
+package com.proteccion.crud.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenCacheTests {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    @Test
+    void entriesExpireAtTheTokenExpirationEvenIfTheTtlIsLonger() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 60_000L, now::get);
+        cache.put("token", claimsExpiringAt(now.get() + 1_000L));
+
+        assertThat(cache.get("token")).isNotNull();
+
+        now.addAndGet(1_000L);
+        assertThat(cache.get("token")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void entriesExpireAfterTheTtl() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(10, 500L, now::get);
+        cache.put("token", claimsExpiringAt(now.get() + 60_000L));
+
+        now.addAndGet(499L);
+        assertThat(cache.get("token")).isNotNull();
+        now.addAndGet(1L);
+        assertThat(cache.get("token")).isNull();
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedWhenFull() {
+        VerifiedTokenCache cache = new VerifiedTokenCache(2, 60_000L, now::get);
+        cache.put("a", claimsExpiringAt(now.get() + 60_000L));
+        cache.put("b", claimsExpiringAt(now.get() + 60_000L));
+        cache.get("a");
+        cache.put("c", claimsExpiringAt(now.get() + 60_000L));
+
+        assertThat(cache.get("a")).isNotNull();
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isNotNull();
+        assertThat(cache.getHitCount()).isEqualTo(3);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    private Claims claimsExpiringAt(long epochMillis) {
+        return Jwts.claims().setSubject("ana").setExpiration(new Date(epochMillis));
+    }
+}